@@ -35,6 +35,7 @@ interface ApiService {
     @POST("/api/v1/orders")
     suspend fun createOrder(
         @Header("Authorization") token: String, 
+        @Header("Idempotency-Key") idempotencyKey: String,
         @Body orderRequest: CreateOrderRequest
     ): Map<String, Any>
 
@@ -10,6 +10,7 @@ import com.storefront.app.model.ProductStockDTO
 import com.storefront.app.network.NetworkModule
 import kotlinx.coroutines.launch
 import java.math.BigDecimal
+import java.util.UUID
 
 data class CartItem(
     val sku: String,
@@ -27,6 +28,10 @@ class CartViewModel : ViewModel() {
     private var _customerName: String? = null
     private var _customerPhone: String? = null
 
+    // Sent with every checkout attempt of the current cart, so a retry after a dropped
+    // response returns the order already placed instead of placing it again
+    private var checkoutKey: String? = null
+
     val totalAmount: BigDecimal
         get() = _cartItems.fold(BigDecimal.ZERO) { acc, item -> 
             acc.add(item.price.multiply(BigDecimal(item.quantity))) 
@@ -35,6 +40,7 @@ class CartViewModel : ViewModel() {
     fun setCustomer(name: String, phone: String) {
         _customerName = name.ifBlank { null }
         _customerPhone = phone.ifBlank { null }
+        checkoutKey = null
     }
 
     fun addToCart(product: ProductStockDTO, quantity: Int = 1) {
@@ -51,6 +57,7 @@ class CartViewModel : ViewModel() {
         } else {
             _cartItems.add(CartItem(sku, name, price, quantity, isBundle))
         }
+        checkoutKey = null
     }
     
     fun removeOne(item: CartItem) {
@@ -61,6 +68,7 @@ class CartViewModel : ViewModel() {
             } else {
                 _cartItems.removeAt(index)
             }
+            checkoutKey = null
         }
     }
 
@@ -68,6 +76,7 @@ class CartViewModel : ViewModel() {
         _cartItems.clear()
         _customerName = null
         _customerPhone = null
+        checkoutKey = null
     }
 
     fun checkout(configManager: ConfigManager, onSuccess: () -> Unit, onError: (String) -> Unit) {
@@ -96,7 +105,8 @@ class CartViewModel : ViewModel() {
                     items = itemsPayload
                 )
 
-                api.createOrder("Bearer $token", orderRequest)
+                val key = checkoutKey ?: UUID.randomUUID().toString().also { checkoutKey = it }
+                api.createOrder("Bearer $token", key, orderRequest)
                 clearCart()
                 onSuccess()
             } catch (e: Exception) {
@@ -34,8 +34,14 @@ public class SecurityConfig {
                                 .sessionManagement(session -> session
                                                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                                 .authorizeHttpRequests(auth -> auth
+                                                // Streaming responses finish on an async dispatch of a request
+                                                // that was already authorized
+                                                .dispatcherTypeMatchers(jakarta.servlet.DispatcherType.ASYNC).permitAll()
                                                 .requestMatchers("/api/v1/auth/**", "/h2-console/**").permitAll()
                                                 .requestMatchers("/api/**").authenticated()
+                                                // Metrics carry cache, token and request URI details
+                                                .requestMatchers("/actuator/health").permitAll()
+                                                .requestMatchers("/actuator/**").hasAnyRole("SUPER_ADMIN", "ADMIN")
                                                 .anyRequest().permitAll())
                                 .exceptionHandling(exceptions -> exceptions
                                                 .authenticationEntryPoint((request, response, authException) -> {
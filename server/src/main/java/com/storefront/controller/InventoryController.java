@@ -1,23 +1,53 @@
 package com.storefront.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.storefront.dto.BundleDTO;
+import com.storefront.dto.InventoryDeltaDTO;
+import com.storefront.dto.InventoryPageDTO;
+import com.storefront.dto.IsbnIngestDTO;
+import com.storefront.dto.IsbnIngestResultDTO;
 import com.storefront.dto.StockIngestDTO;
+import com.storefront.dto.StockReceiptDTO;
 import com.storefront.model.Product;
+import com.storefront.service.CatalogVersion;
 import com.storefront.service.InventoryService;
+import com.storefront.service.IsbnIngestService;
+import com.storefront.service.StockReceivingService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/inventory")
 public class InventoryController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final InventoryService inventoryService;
+    private final IsbnIngestService isbnIngestService;
+    private final StockReceivingService stockReceivingService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectMapper objectMapper;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, IsbnIngestService isbnIngestService,
+            StockReceivingService stockReceivingService, CatalogVersion catalogVersion, ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.isbnIngestService = isbnIngestService;
+        this.stockReceivingService = stockReceivingService;
+        this.catalogVersion = catalogVersion;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/products")
@@ -28,8 +58,8 @@ public class InventoryController {
 
     @GetMapping("/products")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN', 'ROLE_STORE_ADMIN', 'ROLE_EMPLOYEE')")
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(inventoryService.getAllProducts());
+    public ResponseEntity<byte[]> getAllProducts(WebRequest request) {
+        return catalogVersion.listing(request, "products", inventoryService::getAllProducts);
     }
 
     @GetMapping("/view")
@@ -38,6 +68,64 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.getInventoryView(storeId));
     }
 
+    @GetMapping("/view/page")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN', 'ROLE_STORE_ADMIN', 'ROLE_EMPLOYEE')")
+    public ResponseEntity<InventoryPageDTO> getInventoryPage(@RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(inventoryService.getInventoryPage(storeId, after, limit));
+    }
+
+    /**
+     * Delta sync for POS clients: the view rows changed since {@code since}, the previous
+     * response's watermark, and tombstones of deactivated products. Without {@code since} the
+     * whole view is returned.
+     */
+    @GetMapping("/view/changes")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN', 'ROLE_STORE_ADMIN', 'ROLE_EMPLOYEE')")
+    public ResponseEntity<InventoryDeltaDTO> getInventoryChanges(@RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return ResponseEntity.ok(inventoryService.getInventoryChanges(storeId, since));
+    }
+
+    /**
+     * Writes the inventory view row by row as it is read from the database: one JSON object per
+     * line by default, or a single JSON array with {@code format=json}.
+     */
+    @GetMapping("/view/stream")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN', 'ROLE_STORE_ADMIN', 'ROLE_EMPLOYEE')")
+    public ResponseEntity<StreamingResponseBody> streamInventoryView(@RequestParam(required = false) Long storeId,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        boolean array = "json".equalsIgnoreCase(format);
+        if (!array && !"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        }
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                if (array) {
+                    generator.writeStartArray();
+                }
+                inventoryService.streamInventoryView(storeId, row -> {
+                    try {
+                        generator.writeObject(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (array) {
+                    generator.writeEndArray();
+                } else {
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(array ? MediaType.APPLICATION_JSON : NDJSON)
+                .body(body);
+    }
+
     @PostMapping("/bundles")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
     public ResponseEntity<?> createBundle(@RequestBody BundleDTO bundleDTO) {
@@ -46,8 +134,8 @@ public class InventoryController {
 
     @GetMapping("/bundles")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SUPER_ADMIN', 'ROLE_STORE_ADMIN', 'ROLE_EMPLOYEE')")
-    public ResponseEntity<List<com.storefront.dto.BundleViewDTO>> getAllBundles() {
-        return ResponseEntity.ok(inventoryService.getAllBundles());
+    public ResponseEntity<byte[]> getAllBundles(WebRequest request) {
+        return catalogVersion.listing(request, "bundles", inventoryService::getAllBundles);
     }
 
     @PostMapping("/stock")
@@ -56,17 +144,34 @@ public class InventoryController {
         return ResponseEntity.ok(inventoryService.addStock(dto.getSku(), dto.getQuantity()));
     }
 
+    @PostMapping(value = "/stock/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson",
+            "text/csv" })
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
+    public ResponseEntity<StockReceiptDTO> receiveStock(@RequestHeader("Content-Type") MediaType contentType,
+            InputStream body) {
+        StockReceivingService.Format format = NDJSON.isCompatibleWith(contentType) ? StockReceivingService.Format.NDJSON
+                : MediaType.APPLICATION_JSON.isCompatibleWith(contentType) ? StockReceivingService.Format.JSON
+                        : StockReceivingService.Format.CSV;
+        return ResponseEntity.ok(stockReceivingService.receive(body, format));
+    }
+
     @PostMapping("/ingest/isbn")
     @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
     public ResponseEntity<?> ingestIsbn(@RequestBody java.util.Map<String, Object> payload) {
         String isbn = (String) payload.get("isbn");
         int quantity = (int) payload.getOrDefault("quantity", 1);
         Object priceObj = payload.get("price");
-        Double price = null;
+        java.math.BigDecimal price = null;
         if (priceObj != null) {
-            price = Double.valueOf(priceObj.toString());
+            price = new java.math.BigDecimal(priceObj.toString());
         }
-        return ResponseEntity.ok(inventoryService.ingestBook(isbn, quantity, price));
+        return ResponseEntity.ok(isbnIngestService.ingestBook(isbn, quantity, price));
+    }
+
+    @PostMapping("/ingest/isbn/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SUPER_ADMIN')")
+    public ResponseEntity<IsbnIngestResultDTO> ingestIsbnBatch(@RequestBody List<IsbnIngestDTO> items) {
+        return ResponseEntity.ok(isbnIngestService.ingest(items));
     }
 
     @PutMapping("/products/{id}")
@@ -1,34 +1,55 @@
 package com.storefront.controller;
 
+import com.storefront.dto.OrderPageDTO;
 import com.storefront.dto.OrderRequestDTO;
-import com.storefront.model.AppUser;
 import com.storefront.model.CustomerOrder;
-import com.storefront.repository.AppUserRepository;
+import com.storefront.model.OrderLine;
+import com.storefront.security.AuthenticatedUser;
+import com.storefront.security.CurrentUser;
+import com.storefront.service.OrderIdempotencyStore;
 import com.storefront.service.OrderService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/api/v1/orders")
 public class OrderController {
 
     private final OrderService orderService;
-    private final AppUserRepository userRepository;
+    private final OrderIdempotencyStore idempotencyStore;
 
-    public OrderController(OrderService orderService, AppUserRepository userRepository) {
+    public OrderController(OrderService orderService, OrderIdempotencyStore idempotencyStore) {
         this.orderService = orderService;
-        this.userRepository = userRepository;
+        this.idempotencyStore = idempotencyStore;
     }
 
+    /**
+     * Creates an order. A retry carrying the same Idempotency-Key as an earlier submission gets
+     * that order back instead of checking out again.
+     */
     @PostMapping
     public ResponseEntity<?> createOrder(@RequestBody OrderRequestDTO request,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-        CustomerOrder order = orderService.createOrder(request, user);
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @CurrentUser AuthenticatedUser user) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.ok(orderService.createOrder(request, user));
+        }
+        OrderIdempotencyStore.Claim claim = idempotencyStore.claim(user.getId(), idempotencyKey, request);
+        if (claim.previousOrderId().isPresent()) {
+            return ResponseEntity.ok(orderService.getOrder(claim.previousOrderId().get()));
+        }
+        CustomerOrder order;
+        try {
+            order = orderService.createOrder(request, user);
+        } catch (RuntimeException e) {
+            idempotencyStore.release(claim, e);
+            throw e;
+        }
+        idempotencyStore.complete(claim, order.getId());
         return ResponseEntity.ok(order);
     }
 
@@ -37,81 +58,101 @@ public class OrderController {
             @RequestParam(required = false) String customerName,
             @RequestParam(required = false) String customerPhone,
             @RequestParam(required = false) Long storeId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(required = false) String lines,
+            @CurrentUser AuthenticatedUser user) {
 
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-        java.util.List<Long> storeIdsParam = null;
+        java.util.List<Long> storeIdsParam = visibleStoreIds(user, storeId);
+        if (storeIdsParam != null && storeIdsParam.isEmpty()) {
+            return ResponseEntity.ok(java.util.Collections.emptyList());
+        }
 
-        // RBAC Logic
-        if (user.getRole() == com.storefront.model.Role.SUPER_ADMIN
-                || user.getRole() == com.storefront.model.Role.ADMIN) {
-            // Admin can see all, or filter by specific store if requested
-            if (storeId != null) {
-                storeIdsParam = java.util.Collections.singletonList(storeId);
-            }
-        } else {
-            // Non-admin: Get assigned stores
-            java.util.List<Long> allowedStoreIds = user.getStores().stream()
-                    .map(com.storefront.model.Store::getId)
-                    .collect(java.util.stream.Collectors.toList());
+        java.util.List<CustomerOrder> orders = orderService.searchOrders(customerName, customerPhone, storeIdsParam);
+        // lines=compact returns bundle lines as stored (with bundleUnits) instead of one per unit
+        if ("compact".equals(lines)) {
+            orders.forEach(o -> o.setCompactLines(true));
+        }
+        return ResponseEntity.ok(orders);
+    }
 
-            if (allowedStoreIds.isEmpty()) {
-                return ResponseEntity.ok(java.util.Collections.emptyList());
-            }
+    /**
+     * Keyset-paginated order history as slim headers without lines. Pass the returned
+     * {@code nextCursor} back as {@code cursor} for the next page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<OrderPageDTO> getOrderPage(
+            @RequestParam(required = false) String customerName,
+            @RequestParam(required = false) String customerPhone,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @CurrentUser AuthenticatedUser user) {
+        java.util.List<Long> storeIds = visibleStoreIds(user, storeId);
+        if (storeIds != null && storeIds.isEmpty()) {
+            return ResponseEntity.ok(new OrderPageDTO(java.util.Collections.emptyList(), null));
+        }
+        return ResponseEntity.ok(orderService.searchOrderPage(customerName, customerPhone, storeIds, cursor, limit));
+    }
 
-            if (storeId != null) {
-                // User wants specific store. Check if allowed.
-                if (!allowedStoreIds.contains(storeId)) {
-                    // Unauthorized to see this specific store
-                    // Return empty or error? Empty is safer/standard for search filters
-                    return ResponseEntity.ok(java.util.Collections.emptyList());
-                }
-                storeIdsParam = java.util.Collections.singletonList(storeId);
-            } else {
-                // No specific store requested, return orders from all assigned stores
-                storeIdsParam = allowedStoreIds;
-            }
+    @GetMapping("/{id}/lines")
+    public ResponseEntity<java.util.List<OrderLine>> getOrderLines(@PathVariable Long id,
+            @RequestParam(required = false) String lines,
+            @CurrentUser AuthenticatedUser user) {
+        Long storeId = orderService.getOrderStoreId(id);
+        if (!user.isAdmin() && !user.getStoreIds().contains(storeId)) {
+            throw new AccessDeniedException("User does not have access to this store");
         }
+        return ResponseEntity.ok(orderService.getOrderLines(id, "compact".equals(lines)));
+    }
 
-        return ResponseEntity.ok(orderService.searchOrders(customerName, customerPhone, storeIdsParam));
+    /**
+     * Stores whose orders the user may see, narrowed to {@code storeId} when given. Null means
+     * every store; an empty list means none.
+     */
+    private java.util.List<Long> visibleStoreIds(AuthenticatedUser user, Long storeId) {
+        // RBAC Logic
+        if (user.isAdmin()) {
+            // Admin can see all, or filter by specific store if requested
+            return storeId != null ? java.util.Collections.singletonList(storeId) : null;
+        }
+        // Non-admin: Get assigned stores
+        if (storeId != null) {
+            // Unauthorized stores yield no results rather than an error, as for other search filters
+            return user.getStoreIds().contains(storeId) ? java.util.Collections.singletonList(storeId)
+                    : java.util.Collections.emptyList();
+        }
+        return new java.util.ArrayList<>(user.getStoreIds());
     }
 
     @GetMapping("/reconciliation")
     public ResponseEntity<?> getReconciliationReport(
             @RequestParam(required = false) Long storeId,
-            @AuthenticationPrincipal UserDetails userDetails) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @CurrentUser AuthenticatedUser user) {
         // Simple permission check: Admin or specific store they have access to
         // For now, simplify: if they ask for a store, check access. If not, only Admin
         // gets global report?
         // Or if not, they get report for ALL their stores?
 
         // Let's reuse the logic:
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
         if (storeId != null) {
-            boolean hasAccess = user.getRole() == com.storefront.model.Role.SUPER_ADMIN ||
-                    user.getRole() == com.storefront.model.Role.ADMIN ||
-                    user.getStores().stream().anyMatch(s -> s.getId().equals(storeId));
+            boolean hasAccess = user.isAdmin() || user.getStoreIds().contains(storeId);
             if (!hasAccess) {
                 return ResponseEntity.status(403).body("Access denied to this store");
             }
-            return ResponseEntity.ok(orderService.getReconciliationReport(storeId));
+            return ResponseEntity.ok(orderService.getReconciliationReport(storeId, from, to));
         } else {
-            if (user.getRole() == com.storefront.model.Role.SUPER_ADMIN
-                    || user.getRole() == com.storefront.model.Role.ADMIN) {
-                return ResponseEntity.ok(orderService.getReconciliationReport(null));
+            if (user.isAdmin()) {
+                return ResponseEntity.ok(orderService.getReconciliationReport(null, from, to));
             } else {
                 // Return for their FIRST store? Or we need aggregate for list of stores?
                 // Current service only supports 1 store ID or ALL.
                 // Let's just return for the first store they own for MVP.
-                if (user.getStores().isEmpty()) {
+                if (user.getStoreIds().isEmpty()) {
                     return ResponseEntity.ok(new com.storefront.dto.OrderReconciliationSummaryDTO());
                 }
                 return ResponseEntity.ok(orderService.getReconciliationReport(
-                        user.getStores().iterator().next().getId()));
+                        user.getStoreIds().iterator().next(), from, to));
             }
         }
     }
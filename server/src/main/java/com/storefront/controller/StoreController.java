@@ -2,18 +2,22 @@ package com.storefront.controller;
 
 import com.storefront.dto.AllocationRequestDTO;
 import com.storefront.dto.AllocationRequestDTO;
-import com.storefront.model.AppUser;
+import com.storefront.dto.BatchAllocationRequestDTO;
 import com.storefront.model.Store;
 import com.storefront.model.StockLevel;
-import com.storefront.repository.AppUserRepository;
+import com.storefront.security.AuthenticatedUser;
+import com.storefront.security.CurrentUser;
+import com.storefront.service.CatalogVersion;
 import com.storefront.service.InventoryService;
+import com.storefront.service.StockEventHub;
 import com.storefront.service.StoreService;
+import com.storefront.service.StoreTopology;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
 import java.util.List; // Added import for List
@@ -25,14 +29,18 @@ import com.storefront.service.InventoryService; // Added import for InventorySer
 public class StoreController {
 
     private final StoreService storeService;
-    private final AppUserRepository userRepository;
     private final InventoryService inventoryService;
+    private final CatalogVersion catalogVersion;
+    private final StoreTopology storeTopology;
+    private final StockEventHub stockEventHub;
 
-    public StoreController(StoreService storeService, AppUserRepository userRepository,
-            InventoryService inventoryService) {
+    public StoreController(StoreService storeService, InventoryService inventoryService,
+            CatalogVersion catalogVersion, StoreTopology storeTopology, StockEventHub stockEventHub) {
         this.storeService = storeService;
-        this.userRepository = userRepository;
         this.inventoryService = inventoryService;
+        this.catalogVersion = catalogVersion;
+        this.storeTopology = storeTopology;
+        this.stockEventHub = stockEventHub;
     }
 
     @PostMapping
@@ -46,36 +54,52 @@ public class StoreController {
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
     public ResponseEntity<?> allocate(@PathVariable Long id,
             @RequestBody @jakarta.validation.Valid AllocationRequestDTO request,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            @CurrentUser AuthenticatedUser user) {
         storeService.allocateStock(id, request, user);
         return ResponseEntity.ok("Allocated");
     }
 
+    @PostMapping("/allocations")
+    @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
+    public ResponseEntity<?> allocateToStores(@RequestBody @jakarta.validation.Valid BatchAllocationRequestDTO request,
+            @CurrentUser AuthenticatedUser user) {
+        storeService.allocateToStores(request, user);
+        return ResponseEntity.ok("Allocated");
+    }
+
     @PostMapping("/{id}/return")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
     public ResponseEntity<?> returnStock(@PathVariable Long id, @RequestBody AllocationRequestDTO request,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            @CurrentUser AuthenticatedUser user) {
         storeService.returnStock(id, request, user);
         return ResponseEntity.ok("Returned");
     }
 
     @GetMapping("/{storeId}/inventory")
-    public ResponseEntity<List<StockLevel>> getStoreInventory(@PathVariable Long storeId,
-            @RequestParam(required = false) String search) {
+    public ResponseEntity<?> getStoreInventory(@PathVariable Long storeId,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String view) {
+        if ("summary".equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(inventoryService.searchInventorySummary(storeId, search));
+        }
         return ResponseEntity.ok(inventoryService.searchInventory(storeId, search));
     }
 
+    /**
+     * Server-Sent Events stream of the store's stock changes: "stock" events carry the coalesced
+     * changes per SKU, a "resync" event asks the client to reload the inventory.
+     */
+    @GetMapping(value = "/{id}/stock-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stockEvents(@PathVariable Long id) {
+        storeTopology.find(id).orElseThrow(() -> new IllegalArgumentException("Store not found"));
+        return stockEventHub.subscribe(id);
+    }
+
     @PostMapping("/{id}/reconcile")
     @PreAuthorize("hasAnyRole('SUPER_ADMIN', 'STORE_ADMIN', 'ADMIN')")
     public ResponseEntity<com.storefront.dto.ReconciliationReportDTO> reconcile(@PathVariable Long id,
             @RequestParam(required = false, defaultValue = "false") boolean returnStock,
-            @AuthenticationPrincipal UserDetails userDetails) {
-        AppUser user = userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            @CurrentUser AuthenticatedUser user) {
         return ResponseEntity.ok(storeService.reconcileStore(id, returnStock, user));
     }
 
@@ -86,8 +110,11 @@ public class StoreController {
         return ResponseEntity.ok(storeService.getReconciliationHistory(id));
     }
 
+    /**
+     * Conditional on the catalog version, like the product and bundle listings.
+     */
     @GetMapping
-    public java.util.List<Store> listStores() {
-        return storeService.getAllStores();
+    public ResponseEntity<byte[]> listStores(WebRequest request) {
+        return catalogVersion.listing(request, "stores", storeService::getAllStores);
     }
 }
@@ -0,0 +1,17 @@
+package com.storefront.dto;
+
+import java.util.List;
+
+public class BatchAllocationRequestDTO {
+    @jakarta.validation.Valid
+    @jakarta.validation.constraints.NotEmpty(message = "Items list cannot be empty")
+    private List<StoreAllocationDTO> items;
+
+    public List<StoreAllocationDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<StoreAllocationDTO> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,53 @@
+package com.storefront.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class InventoryDeltaDTO {
+    private List<ProductStockDTO> items;
+    private List<RemovedProduct> removed;
+    private LocalDateTime watermark;
+    private boolean full;
+
+    public InventoryDeltaDTO(List<ProductStockDTO> items, List<RemovedProduct> removed, LocalDateTime watermark,
+            boolean full) {
+        this.items = items;
+        this.removed = removed;
+        this.watermark = watermark;
+        this.full = full;
+    }
+
+    public List<ProductStockDTO> getItems() {
+        return items;
+    }
+
+    public List<RemovedProduct> getRemoved() {
+        return removed;
+    }
+
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public static class RemovedProduct {
+        private Long id;
+        private String sku;
+
+        public RemovedProduct(Long id, String sku) {
+            this.id = id;
+            this.sku = sku;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+    }
+}
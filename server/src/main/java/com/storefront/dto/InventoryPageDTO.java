@@ -0,0 +1,21 @@
+package com.storefront.dto;
+
+import java.util.List;
+
+public class InventoryPageDTO {
+    private List<ProductStockDTO> items;
+    private Long nextAfter;
+
+    public InventoryPageDTO(List<ProductStockDTO> items, Long nextAfter) {
+        this.items = items;
+        this.nextAfter = nextAfter;
+    }
+
+    public List<ProductStockDTO> getItems() {
+        return items;
+    }
+
+    public Long getNextAfter() {
+        return nextAfter;
+    }
+}
@@ -0,0 +1,42 @@
+package com.storefront.dto;
+
+import java.math.BigDecimal;
+
+public class IsbnIngestDTO {
+    private String isbn;
+    private int quantity = 1;
+    private BigDecimal price;
+
+    public IsbnIngestDTO() {
+    }
+
+    public IsbnIngestDTO(String isbn, int quantity, BigDecimal price) {
+        this.isbn = isbn;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
@@ -0,0 +1,23 @@
+package com.storefront.dto;
+
+import com.storefront.model.Product;
+
+import java.util.List;
+
+public class IsbnIngestResultDTO {
+    private List<Product> products;
+    private List<String> notFound;
+
+    public IsbnIngestResultDTO(List<Product> products, List<String> notFound) {
+        this.products = products;
+        this.notFound = notFound;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public List<String> getNotFound() {
+        return notFound;
+    }
+}
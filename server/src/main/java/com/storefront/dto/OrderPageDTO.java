@@ -0,0 +1,21 @@
+package com.storefront.dto;
+
+import java.util.List;
+
+public class OrderPageDTO {
+    private List<OrderSummaryDTO> items;
+    private String nextCursor;
+
+    public OrderPageDTO(List<OrderSummaryDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderSummaryDTO> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
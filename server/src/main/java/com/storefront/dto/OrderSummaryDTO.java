@@ -0,0 +1,81 @@
+package com.storefront.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the paginated order history: the order header without its lines.
+ */
+public class OrderSummaryDTO {
+    private Long id;
+    private LocalDateTime createdAt;
+    private Long storeId;
+    private String storeName;
+    private String customerName;
+    private String customerPhone;
+    private BigDecimal totalAmount;
+    private BigDecimal discount;
+    private String status;
+    private boolean reconciled;
+    private String processedBy;
+
+    public OrderSummaryDTO(Long id, LocalDateTime createdAt, Long storeId, String storeName, String customerName,
+            String customerPhone, BigDecimal totalAmount, BigDecimal discount, String status, boolean reconciled,
+            String processedBy) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.storeId = storeId;
+        this.storeName = storeName;
+        this.customerName = customerName;
+        this.customerPhone = customerPhone;
+        this.totalAmount = totalAmount;
+        this.discount = discount;
+        this.status = status;
+        this.reconciled = reconciled;
+        this.processedBy = processedBy;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerPhone() {
+        return customerPhone;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getDiscount() {
+        return discount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isReconciled() {
+        return reconciled;
+    }
+
+    public String getProcessedBy() {
+        return processedBy;
+    }
+}
@@ -0,0 +1,63 @@
+package com.storefront.dto;
+
+import java.util.List;
+
+public class StockReceiptDTO {
+    private long rows;
+    private long accepted;
+    private long units;
+    private long errorCount;
+    private List<RowError> errors;
+
+    public StockReceiptDTO(long rows, long accepted, long units, long errorCount, List<RowError> errors) {
+        this.rows = rows;
+        this.accepted = accepted;
+        this.units = units;
+        this.errorCount = errorCount;
+        this.errors = errors;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public static class RowError {
+        private long row;
+        private String sku;
+        private String message;
+
+        public RowError(long row, String sku, String message) {
+            this.row = row;
+            this.sku = sku;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public String getSku() {
+            return sku;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.storefront.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class StockSummaryDTO {
+    private String sku;
+    private String name;
+    private String type;
+    private BigDecimal price;
+    private int quantity;
+    private LocalDateTime lastUpdated;
+
+    public StockSummaryDTO(String sku, String name, String type, BigDecimal price, int quantity,
+            LocalDateTime lastUpdated) {
+        this.sku = sku;
+        this.name = name;
+        this.type = type;
+        this.price = price;
+        this.quantity = quantity;
+        this.lastUpdated = lastUpdated;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public LocalDateTime getLastUpdated() {
+        return lastUpdated;
+    }
+}
@@ -0,0 +1,17 @@
+package com.storefront.dto;
+
+/**
+ * One line of a multi-store allocation: a SKU and quantity for a given store.
+ */
+public class StoreAllocationDTO extends StockAllocationDTO {
+    @jakarta.validation.constraints.NotNull(message = "Store is required")
+    private Long storeId;
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(Long storeId) {
+        this.storeId = storeId;
+    }
+}
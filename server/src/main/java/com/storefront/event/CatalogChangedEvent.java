@@ -0,0 +1,42 @@
+package com.storefront.event;
+
+import com.storefront.model.Product;
+
+/**
+ * Published whenever a product, bundle or bundle composition is written. Carries the SKU whose
+ * resolution may have changed and, for product writes, the product as it was written.
+ */
+public class CatalogChangedEvent {
+
+    private final String sku;
+    private final Product product;
+    private final boolean removed;
+
+    public CatalogChangedEvent(String sku) {
+        this(sku, null, false);
+    }
+
+    public CatalogChangedEvent(String sku, Product product, boolean removed) {
+        this.sku = sku;
+        this.product = product;
+        this.removed = removed;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    /**
+     * The written product; null when the change was to a bundle.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * True when the entity was deleted rather than inserted or updated.
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,18 @@
+package com.storefront.event;
+
+/**
+ * Published whenever an application user is updated or deleted. Carries the id whose role or
+ * store assignments may have changed.
+ */
+public class UserChangedEvent {
+
+    private final Long userId;
+
+    public UserChangedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "app_user")
+@EntityListeners(UserChangeListener.class)
 public class AppUser {
 
     @Id
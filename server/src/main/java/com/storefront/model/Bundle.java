@@ -5,6 +5,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "bundle")
+@EntityListeners(CatalogChangeListener.class)
 public class Bundle {
 
     @Id
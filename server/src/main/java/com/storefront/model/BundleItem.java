@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 
 @Entity
 @Table(name = "bundle_item")
+@EntityListeners(CatalogChangeListener.class)
 public class BundleItem {
 
     @EmbeddedId
@@ -0,0 +1,47 @@
+package com.storefront.model;
+
+import com.storefront.event.CatalogChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on catalog entities. Turns every insert, update and delete into a
+ * {@link CatalogChangedEvent}, so caches see changes no matter which code path saved them.
+ */
+public class CatalogChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public CatalogChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Product product) {
+            publisher.publishEvent(new CatalogChangedEvent(product.getSku(), product, removed));
+            return;
+        }
+        String sku = null;
+        if (entity instanceof Bundle bundle) {
+            sku = bundle.getSku();
+        } else if (entity instanceof BundleItem item && item.getBundle() != null) {
+            sku = item.getBundle().getSku();
+        }
+        if (sku != null) {
+            publisher.publishEvent(new CatalogChangedEvent(sku, null, removed));
+        }
+    }
+}
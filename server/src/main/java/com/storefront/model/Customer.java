@@ -3,6 +3,7 @@ package com.storefront.model;
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
 @Table(name = "customer")
@@ -18,6 +19,11 @@ public class Customer {
     @Column(nullable = false, unique = true)
     private String phone;
 
+    // Lower-cased name for indexed prefix search
+    @Column(name = "name_key")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private String nameKey;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -53,4 +59,14 @@ public class Customer {
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateNameKey() {
+        nameKey = normalizeName(name);
+    }
+
+    public static String normalizeName(String name) {
+        return name == null ? null : name.trim().toLowerCase(Locale.ROOT);
+    }
 }
@@ -12,7 +12,8 @@ import java.util.List;
 public class CustomerOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_order_seq")
+    @SequenceGenerator(name = "customer_order_seq", sequenceName = "customer_order_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -22,7 +23,8 @@ public class CustomerOrder {
 
     @ManyToOne(optional = false)
     @JoinColumn(name = "user_id")
-    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "stores", "passwordHash", "role" })
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "stores", "passwordHash", "role",
+            "hibernateLazyInitializer", "handler" })
     private AppUser processedBy;
 
     @ManyToOne(optional = true) // Optional for now to support legacy orders without migration if needed, but
@@ -52,6 +54,10 @@ public class CustomerOrder {
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderLine> orderLines = new ArrayList<>();
 
+    // Response shaping only: return lines as stored instead of one line per bundle unit
+    @Transient
+    private boolean compactLines;
+
     public CustomerOrder() {
     }
 
@@ -126,10 +132,31 @@ public class CustomerOrder {
         return createdAt;
     }
 
+    @com.fasterxml.jackson.annotation.JsonIgnore
     public List<OrderLine> getOrderLines() {
         return orderLines;
     }
 
+    /**
+     * Lines as serialized for clients. Bundle lines are stored once with a unit count and are
+     * expanded back to one line per unit unless compact lines were requested.
+     */
+    @com.fasterxml.jackson.annotation.JsonProperty("orderLines")
+    public List<OrderLine> getDisplayLines() {
+        if (compactLines) {
+            return orderLines;
+        }
+        List<OrderLine> lines = new ArrayList<>();
+        for (OrderLine line : orderLines) {
+            lines.addAll(line.expand());
+        }
+        return lines;
+    }
+
+    public void setCompactLines(boolean compactLines) {
+        this.compactLines = compactLines;
+    }
+
     public void addOrderLine(OrderLine line) {
         orderLines.add(line);
         line.setOrder(this);
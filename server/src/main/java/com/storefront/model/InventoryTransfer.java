@@ -9,7 +9,8 @@ import java.time.LocalDateTime;
 public class InventoryTransfer {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_transfer_seq")
+    @SequenceGenerator(name = "inventory_transfer_seq", sequenceName = "inventory_transfer_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
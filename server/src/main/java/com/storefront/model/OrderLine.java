@@ -2,13 +2,16 @@ package com.storefront.model;
 
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "order_line")
 public class OrderLine {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @SequenceGenerator(name = "order_line_seq", sequenceName = "order_line_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -18,10 +21,12 @@ public class OrderLine {
 
     @ManyToOne(optional = false)
     @JoinColumn(name = "product_id")
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
     private Product product;
 
     @ManyToOne
     @JoinColumn(name = "bundle_id") // Optional
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties({ "hibernateLazyInitializer", "handler" })
     private Bundle bundle;
 
     @Column(name = "unit_price", nullable = false)
@@ -33,6 +38,11 @@ public class OrderLine {
     @Column(nullable = false)
     private int quantity = 1;
 
+    // Number of bundle units this line stands for; quantity is per unit. Always 1 for
+    // products sold on their own.
+    @Column(name = "bundle_units", nullable = false)
+    private int bundleUnits = 1;
+
     public OrderLine() {
     }
 
@@ -96,6 +106,37 @@ public class OrderLine {
         this.quantity = quantity;
     }
 
+    public int getBundleUnits() {
+        return bundleUnits;
+    }
+
+    public void setBundleUnits(int bundleUnits) {
+        this.bundleUnits = bundleUnits;
+    }
+
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    public int getTotalQuantity() {
+        return quantity * bundleUnits;
+    }
+
+    /**
+     * One copy of this line per bundle unit, the shape clients saw before lines were aggregated.
+     * The copies are for display only and are never persisted.
+     */
+    public List<OrderLine> expand() {
+        if (bundleUnits == 1) {
+            return List.of(this);
+        }
+        List<OrderLine> copies = new ArrayList<>(bundleUnits);
+        for (int i = 0; i < bundleUnits; i++) {
+            OrderLine copy = new OrderLine(product, bundle, unitPrice, isExclusion, quantity);
+            copy.id = id;
+            copy.order = order;
+            copies.add(copy);
+        }
+        return copies;
+    }
+
     public String getProductSku() {
         return product != null ? product.getSku() : "";
     }
@@ -2,12 +2,14 @@ package com.storefront.model;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import com.storefront.model.attributes.ProductAttributes;
 
 @Entity
 @Table(name = "product")
+@EntityListeners(CatalogChangeListener.class)
 public class Product {
 
     @Id
@@ -40,6 +42,11 @@ public class Product {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Change version read by the inventory delta sync; moves on every write, deactivation included
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     public Product() {
     }
 
@@ -99,6 +106,10 @@ public class Product {
         return createdAt;
     }
 
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
     public boolean isActive() {
         return isActive;
     }
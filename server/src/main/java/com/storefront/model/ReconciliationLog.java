@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 public class ReconciliationLog {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reconciliation_log_seq")
+    @SequenceGenerator(name = "reconciliation_log_seq", sequenceName = "reconciliation_log_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -0,0 +1,30 @@
+package com.storefront.model;
+
+/**
+ * A signed change to the quantity of one stock_level row. Not an entity; used to hand
+ * batches of changes to set-based repository operations.
+ */
+public class StockDelta {
+
+    private final Long storeId;
+    private final Long productId;
+    private final int quantity;
+
+    public StockDelta(Long storeId, Long productId, int quantity) {
+        this.storeId = storeId;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getStoreId() {
+        return storeId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
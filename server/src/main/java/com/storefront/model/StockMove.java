@@ -0,0 +1,43 @@
+package com.storefront.model;
+
+/**
+ * A quantity of one product moved between two stores. Not an entity; used to hand batches of
+ * transfers to {@link com.storefront.service.StockTransferService} and to the set-based ledger
+ * insert.
+ */
+public class StockMove {
+
+    private final Long fromStoreId;
+    private final Long toStoreId;
+    private final Long productId;
+    private final String sku;
+    private final int quantity;
+
+    public StockMove(Long fromStoreId, Long toStoreId, Long productId, String sku, int quantity) {
+        this.fromStoreId = fromStoreId;
+        this.toStoreId = toStoreId;
+        this.productId = productId;
+        this.sku = sku;
+        this.quantity = quantity;
+    }
+
+    public Long getFromStoreId() {
+        return fromStoreId;
+    }
+
+    public Long getToStoreId() {
+        return toStoreId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,27 @@
+package com.storefront.model;
+
+import com.storefront.event.UserChangedEvent;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on {@link AppUser}. Turns every update and delete into a {@link UserChangedEvent},
+ * so cached authorities see role changes no matter which code path saved them.
+ */
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher publisher;
+
+    public UserChangeListener(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(AppUser user) {
+        if (user.getId() != null) {
+            publisher.publishEvent(new UserChangedEvent(user.getId()));
+        }
+    }
+}
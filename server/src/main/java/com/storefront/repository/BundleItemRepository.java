@@ -3,8 +3,18 @@ package com.storefront.repository;
 import com.storefront.model.BundleItem;
 import com.storefront.model.BundleItemKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface BundleItemRepository extends JpaRepository<BundleItem, BundleItemKey> {
     List<BundleItem> findByBundleId(Long bundleId);
+
+    // Fetches components together with their products so bundle explosion needs no per-item lookups
+    @Query("select bi from BundleItem bi join fetch bi.bundle join fetch bi.product where bi.bundle.id in :bundleIds")
+    List<BundleItem> findByBundleIdInWithProduct(@Param("bundleIds") Collection<Long> bundleIds);
+
+    @Query("select bi from BundleItem bi join fetch bi.bundle join fetch bi.product")
+    List<BundleItem> findAllWithProduct();
 }
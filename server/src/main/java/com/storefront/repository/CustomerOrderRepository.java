@@ -2,13 +2,47 @@ package com.storefront.repository;
 
 import com.storefront.model.CustomerOrder;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 public interface CustomerOrderRepository
-        extends JpaRepository<CustomerOrder, Long>, JpaSpecificationExecutor<CustomerOrder> {
+        extends JpaRepository<CustomerOrder, Long>, JpaSpecificationExecutor<CustomerOrder>,
+        CustomerOrderRepositoryCustom {
     List<CustomerOrder> findByStoreId(Long storeId);
 
     List<CustomerOrder> findByStoreIdAndReconciledFalse(Long storeId);
+
+    @Query("select o.store.id from CustomerOrder o where o.id = :orderId")
+    Optional<Long> findStoreIdById(@Param("orderId") Long orderId);
+
+    /**
+     * Flags every open order of a store as reconciled in one statement.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update CustomerOrder o set o.reconciled = true where o.store.id = :storeId and o.reconciled = false")
+    int markReconciled(@Param("storeId") Long storeId);
+
+    /**
+     * Order count and amount of one store created in [from, to), one row per reconciled flag:
+     * (Boolean reconciled, Long count, BigDecimal amount). Served by the
+     * (store_id, reconciled, created_at) index.
+     */
+    @Query("select o.reconciled, count(o), coalesce(sum(o.totalAmount), 0) from CustomerOrder o "
+            + "where o.store.id = :storeId and o.createdAt >= :from and o.createdAt < :to group by o.reconciled")
+    List<Object[]> summarizeByStore(@Param("storeId") Long storeId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    /**
+     * Same as {@link #summarizeByStore} across all stores.
+     */
+    @Query("select o.reconciled, count(o), coalesce(sum(o.totalAmount), 0) from CustomerOrder o "
+            + "where o.createdAt >= :from and o.createdAt < :to group by o.reconciled")
+    List<Object[]> summarize(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -0,0 +1,21 @@
+package com.storefront.repository;
+
+import com.storefront.dto.OrderSummaryDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order history reads that project straight into DTOs instead of loading entity graphs.
+ */
+public interface CustomerOrderRepositoryCustom {
+
+    /**
+     * One page of order headers, newest first by (created_at, id). Only orders strictly before
+     * the {@code beforeCreatedAt}/{@code beforeId} keyset are returned (both null for the first
+     * page). {@code storeIds} null means every store; name and phone are matched as prefixes, the
+     * name against the lower-cased name key.
+     */
+    List<OrderSummaryDTO> findSummaryPage(List<Long> storeIds, String namePrefix, String phonePrefix,
+            LocalDateTime beforeCreatedAt, Long beforeId, int limit);
+}
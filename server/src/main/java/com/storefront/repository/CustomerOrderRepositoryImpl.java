@@ -0,0 +1,72 @@
+package com.storefront.repository;
+
+import com.storefront.dto.OrderSummaryDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CustomerOrderRepositoryImpl implements CustomerOrderRepositoryCustom {
+
+    private static final String ORDER_SUMMARY = "SELECT o.id, o.created_at, o.store_id, s.name AS store_name, "
+            + "c.name AS customer_name, c.phone, o.total_amount, o.discount, o.status, o.reconciled, u.username "
+            + "FROM customer_order o JOIN store s ON s.id = o.store_id "
+            + "LEFT JOIN app_user u ON u.id = o.user_id "
+            + "LEFT JOIN customer c ON c.id = o.customer_id WHERE 1 = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RowMapper<OrderSummaryDTO> summaryRowMapper = (rs, rowNum) -> new OrderSummaryDTO(
+            rs.getLong("id"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getLong("store_id"),
+            rs.getString("store_name"),
+            rs.getString("customer_name"),
+            rs.getString("phone"),
+            rs.getBigDecimal("total_amount"),
+            rs.getBigDecimal("discount"),
+            rs.getString("status"),
+            rs.getBoolean("reconciled"),
+            rs.getString("username"));
+
+    public CustomerOrderRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<OrderSummaryDTO> findSummaryPage(List<Long> storeIds, String namePrefix, String phonePrefix,
+            LocalDateTime beforeCreatedAt, Long beforeId, int limit) {
+        StringBuilder sql = new StringBuilder(ORDER_SUMMARY);
+        List<Object> args = new ArrayList<>();
+        if (storeIds != null) {
+            sql.append(" AND o.store_id IN (").append(String.join(", ", Collections.nCopies(storeIds.size(), "?")))
+                    .append(")");
+            args.addAll(storeIds);
+        }
+        if (namePrefix != null) {
+            sql.append(" AND c.name_key LIKE ? ESCAPE '\\'");
+            args.add(likePrefix(namePrefix));
+        }
+        if (phonePrefix != null) {
+            sql.append(" AND c.phone LIKE ? ESCAPE '\\'");
+            args.add(likePrefix(phonePrefix));
+        }
+        if (beforeCreatedAt != null) {
+            Timestamp before = Timestamp.valueOf(beforeCreatedAt);
+            sql.append(" AND (o.created_at < ? OR (o.created_at = ? AND o.id < ?))");
+            args.add(before);
+            args.add(before);
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY o.created_at DESC, o.id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), summaryRowMapper, args.toArray());
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
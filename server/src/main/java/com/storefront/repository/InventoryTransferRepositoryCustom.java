@@ -0,0 +1,17 @@
+package com.storefront.repository;
+
+import com.storefront.model.StockMove;
+
+import java.util.List;
+
+/**
+ * Transfer ledger writes that bypass the persistence context and run as one JDBC batch.
+ */
+public interface InventoryTransferRepositoryCustom {
+
+    /**
+     * Records one transfer row per move, made by {@code userId}. Ids come from the same pooled
+     * sequence Hibernate uses, so these rows and entity inserts never collide.
+     */
+    void insertAll(List<StockMove> moves, Long userId);
+}
@@ -0,0 +1,74 @@
+package com.storefront.repository;
+
+import com.storefront.model.StockMove;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class InventoryTransferRepositoryImpl implements InventoryTransferRepositoryCustom {
+
+    // INCREMENT BY of inventory_transfer_seq and allocationSize of InventoryTransfer: every value
+    // drawn is the top of a block of this many ids
+    private static final int ID_BLOCK = 50;
+
+    private static final String INSERT = "INSERT INTO inventory_transfer "
+            + "(id, from_store_id, to_store_id, product_id, quantity, transferred_by_user_id, transferred_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public InventoryTransferRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAll(List<StockMove> moves, Long userId) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        int blocks = (moves.size() + ID_BLOCK - 1) / ID_BLOCK;
+        List<Long> tops = jdbcTemplate.queryForList(isPostgres()
+                ? "SELECT nextval('inventory_transfer_seq') FROM generate_series(1, ?)"
+                : "SELECT NEXT VALUE FOR inventory_transfer_seq FROM SYSTEM_RANGE(1, ?)", Long.class, blocks);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate(INSERT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                StockMove move = moves.get(i);
+                ps.setLong(1, tops.get(i / ID_BLOCK) - ID_BLOCK + 1 + i % ID_BLOCK);
+                ps.setLong(2, move.getFromStoreId());
+                ps.setLong(3, move.getToStoreId());
+                ps.setLong(4, move.getProductId());
+                ps.setInt(5, move.getQuantity());
+                if (userId != null) {
+                    ps.setLong(6, userId);
+                } else {
+                    ps.setNull(6, Types.BIGINT);
+                }
+                ps.setTimestamp(7, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return moves.size();
+            }
+        });
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
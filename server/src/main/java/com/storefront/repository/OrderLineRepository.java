@@ -2,8 +2,17 @@ package com.storefront.repository;
 
 import com.storefront.model.OrderLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface OrderLineRepository extends JpaRepository<OrderLine, Long> {
     List<OrderLine> findByOrderId(Long orderId);
+
+    /**
+     * Lines of one order with their product and bundle, in insertion order, in one query.
+     */
+    @Query("select l from OrderLine l join fetch l.product left join fetch l.bundle where l.order.id = :orderId "
+            + "order by l.id")
+    List<OrderLine> findWithProductsByOrderId(@Param("orderId") Long orderId);
 }
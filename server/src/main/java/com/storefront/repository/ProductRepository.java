@@ -1,7 +1,14 @@
 package com.storefront.repository;
 
+import com.storefront.dto.InventoryDeltaDTO;
 import com.storefront.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -9,10 +16,19 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findBySkuAndIsActiveTrue(String sku);
 
+    List<Product> findBySkuIn(Collection<String> skus);
+
     @Override
     default java.util.List<Product> findAll() {
         return findByIsActiveTrue();
     }
 
     java.util.List<Product> findByIsActiveTrue();
+
+    /**
+     * Tombstones of the products deactivated after {@code since}.
+     */
+    @Query("select new com.storefront.dto.InventoryDeltaDTO$RemovedProduct(p.id, p.sku) from Product p "
+            + "where p.isActive = false and p.updatedAt > :since order by p.id")
+    List<InventoryDeltaDTO.RemovedProduct> findRemovedSince(@Param("since") LocalDateTime since);
 }
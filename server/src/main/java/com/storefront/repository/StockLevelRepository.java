@@ -1,17 +1,68 @@
 package com.storefront.repository;
 
+import com.storefront.dto.StockSummaryDTO;
 import com.storefront.model.StockLevel;
 import com.storefront.model.StockLevelKey;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 public interface StockLevelRepository
-        extends JpaRepository<StockLevel, StockLevelKey>, JpaSpecificationExecutor<StockLevel> {
+        extends JpaRepository<StockLevel, StockLevelKey>, JpaSpecificationExecutor<StockLevel>,
+        StockLevelRepositoryCustom {
     @org.springframework.data.jpa.repository.Lock(jakarta.persistence.LockModeType.PESSIMISTIC_WRITE)
     Optional<StockLevel> findByStoreIdAndProductId(Long storeId, Long productId);
 
     List<StockLevel> findByStoreId(Long storeId);
+
+    /**
+     * Atomically takes {@code quantity} units from a store. The availability check and the write
+     * happen in the same statement, so no row is read into memory and no lock outlives the update.
+     *
+     * @return 1 if the stock was decremented, 0 if the row is missing or holds fewer units
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockLevel s set s.quantity = s.quantity - :quantity, s.lastUpdated = local datetime "
+            + "where s.id.storeId = :storeId and s.id.productId = :productId and s.quantity >= :quantity")
+    int decrementIfAvailable(@Param("storeId") Long storeId, @Param("productId") Long productId,
+            @Param("quantity") int quantity);
+
+    /**
+     * Atomically adds {@code quantity} units to an existing row.
+     *
+     * @return 1 if the row exists and was updated, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update StockLevel s set s.quantity = s.quantity + :quantity, s.lastUpdated = local datetime "
+            + "where s.id.storeId = :storeId and s.id.productId = :productId")
+    int increment(@Param("storeId") Long storeId, @Param("productId") Long productId,
+            @Param("quantity") int quantity);
+
+    @Query("select s.id.productId from StockLevel s where s.id.storeId = :storeId")
+    List<Long> findProductIdsByStoreId(@Param("storeId") Long storeId);
+
+    @Query("select s.quantity from StockLevel s where s.id.storeId = :storeId and s.id.productId = :productId")
+    Optional<Integer> findQuantity(@Param("storeId") Long storeId, @Param("productId") Long productId);
+
+    /**
+     * Stock of a store as flat rows selected in one query, without loading the Store, its owner
+     * or the Product entities.
+     */
+    @Query("select new com.storefront.dto.StockSummaryDTO(p.sku, p.name, p.type, p.basePrice, s.quantity, s.lastUpdated) "
+            + "from StockLevel s join s.product p where s.id.storeId = :storeId order by p.sku")
+    List<StockSummaryDTO> findSummaryByStoreId(@Param("storeId") Long storeId);
+
+    /**
+     * {@link #findSummaryByStoreId} restricted to the given products.
+     */
+    @Query("select new com.storefront.dto.StockSummaryDTO(p.sku, p.name, p.type, p.basePrice, s.quantity, s.lastUpdated) "
+            + "from StockLevel s join s.product p where s.id.storeId = :storeId and p.id in :productIds")
+    List<StockSummaryDTO> findSummaryByStoreIdAndProductIdIn(@Param("storeId") Long storeId,
+            @Param("productIds") Collection<Long> productIds);
 }
@@ -0,0 +1,58 @@
+package com.storefront.repository;
+
+import com.storefront.dto.ProductStockDTO;
+import com.storefront.model.StockDelta;
+import com.storefront.model.StockLevelKey;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Set-based stock operations that bypass the persistence context and run as JDBC batches.
+ */
+public interface StockLevelRepositoryCustom {
+
+    /**
+     * Adds each delta to its row unconditionally, inserting rows that do not exist yet. On
+     * PostgreSQL this is one batched INSERT ... ON CONFLICT DO UPDATE.
+     */
+    void addQuantities(Collection<StockDelta> deltas);
+
+    /**
+     * Locks the existing rows among {@code keys} for update and returns their quantities. Rows
+     * are locked in (store_id, product_id) order whatever the order of {@code keys}, so two
+     * sweeps over overlapping rows cannot deadlock. Keys without a row are absent from the map.
+     */
+    Map<StockLevelKey, Integer> lockQuantities(Collection<StockLevelKey> keys);
+
+    /**
+     * Moves all positive stock of {@code storeId} into {@code targetStoreId}: the affected rows of
+     * both stores are locked as in {@link #lockQuantities}, the target is credited with one
+     * UPSERT-from-SELECT and the source rows are zeroed with one UPDATE.
+     *
+     * @return the quantities moved, by product id in ascending order
+     */
+    Map<Long, Integer> moveAllStock(Long storeId, Long targetStoreId);
+
+    /**
+     * One page of the inventory view of a store: active products with an id greater than
+     * {@code afterProductId} (null for the first page), joined with their stock level in a single
+     * projection query and ordered by product id.
+     */
+    List<ProductStockDTO> findInventoryPage(Long storeId, Long afterProductId, int limit);
+
+    /**
+     * Same projection as {@link #findInventoryPage} over the whole catalog, handing each row to
+     * {@code sink} as it is read from the cursor instead of collecting the result.
+     */
+    void streamInventory(Long storeId, Consumer<ProductStockDTO> sink);
+
+    /**
+     * Same projection as {@link #findInventoryPage}, limited to active products written after
+     * {@code since} or whose stock level in the store was, ordered by product id.
+     */
+    List<ProductStockDTO> findInventoryChanges(Long storeId, LocalDateTime since);
+}
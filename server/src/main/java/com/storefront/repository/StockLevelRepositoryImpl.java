@@ -0,0 +1,217 @@
+package com.storefront.repository;
+
+import com.storefront.dto.ProductStockDTO;
+import com.storefront.model.JsonAttributeConverter;
+import com.storefront.model.StockDelta;
+import com.storefront.model.StockLevelKey;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+public class StockLevelRepositoryImpl implements StockLevelRepositoryCustom {
+
+    private static final String INVENTORY_VIEW = "SELECT p.id, p.sku, p.name, p.type, p.base_price, "
+            + "COALESCE(s.quantity, 0) AS quantity, p.attributes FROM product p "
+            + "LEFT JOIN stock_level s ON s.product_id = p.id AND s.store_id = ? "
+            + "WHERE p.is_active = TRUE";
+
+    private static final String CHANGED_SINCE = " AND p.id IN (SELECT id FROM product WHERE updated_at > ? "
+            + "UNION SELECT product_id FROM stock_level WHERE store_id = ? AND last_updated > ?)";
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    // Product ids per SELECT ... FOR UPDATE of the lock sweep
+    private static final int LOCK_CHUNK_SIZE = 1000;
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO stock_level (store_id, product_id, quantity, last_updated) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (store_id, product_id) "
+            + "DO UPDATE SET quantity = stock_level.quantity + EXCLUDED.quantity, last_updated = EXCLUDED.last_updated";
+
+    private static final String MOVE_ALL_POSTGRES = "INSERT INTO stock_level (store_id, product_id, quantity, last_updated) "
+            + "SELECT ?, product_id, quantity, ? FROM stock_level WHERE store_id = ? AND quantity > 0 "
+            + "ON CONFLICT (store_id, product_id) "
+            + "DO UPDATE SET quantity = stock_level.quantity + EXCLUDED.quantity, last_updated = EXCLUDED.last_updated";
+
+    private static final String MOVE_ALL_H2 = "MERGE INTO stock_level t USING "
+            + "(SELECT product_id, quantity FROM stock_level WHERE store_id = ? AND quantity > 0) s "
+            + "ON t.store_id = ? AND t.product_id = s.product_id "
+            + "WHEN MATCHED THEN UPDATE SET quantity = t.quantity + s.quantity, last_updated = ? "
+            + "WHEN NOT MATCHED THEN INSERT (store_id, product_id, quantity, last_updated) "
+            + "VALUES (?, s.product_id, s.quantity, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+    private final JsonAttributeConverter attributeConverter = new JsonAttributeConverter();
+    private final RowMapper<ProductStockDTO> inventoryRowMapper = (rs, rowNum) -> new ProductStockDTO(
+            rs.getLong("id"),
+            rs.getString("sku"),
+            rs.getString("name"),
+            rs.getString("type"),
+            rs.getBigDecimal("base_price"),
+            rs.getInt("quantity"),
+            attributeConverter.convertToEntityAttribute(rs.getString("attributes")));
+
+    public StockLevelRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addQuantities(Collection<StockDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<StockDelta> rows = new ArrayList<>(deltas);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        if (isPostgres()) {
+            jdbcTemplate.batchUpdate(UPSERT_POSTGRES, rows, rows.size(), (ps, delta) -> {
+                ps.setLong(1, delta.getStoreId());
+                ps.setLong(2, delta.getProductId());
+                ps.setInt(3, delta.getQuantity());
+                ps.setTimestamp(4, now);
+            });
+            return;
+        }
+
+        // H2 has no ON CONFLICT DO UPDATE, and its MERGE ... USING is slower than a keyed UPDATE
+        // batch followed by an INSERT batch for the misses.
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE stock_level SET quantity = quantity + ?, last_updated = ? WHERE store_id = ? AND product_id = ?",
+                rows, rows.size(), (ps, delta) -> {
+                    ps.setInt(1, delta.getQuantity());
+                    ps.setTimestamp(2, now);
+                    ps.setLong(3, delta.getStoreId());
+                    ps.setLong(4, delta.getProductId());
+                })[0];
+
+        List<StockDelta> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(rows.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO stock_level (store_id, product_id, quantity, last_updated) VALUES (?, ?, ?, ?)",
+                    missing, missing.size(), (ps, delta) -> {
+                        ps.setLong(1, delta.getStoreId());
+                        ps.setLong(2, delta.getProductId());
+                        ps.setInt(3, delta.getQuantity());
+                        ps.setTimestamp(4, now);
+                    });
+        }
+    }
+
+    @Override
+    public Map<StockLevelKey, Integer> lockQuantities(Collection<StockLevelKey> keys) {
+        Map<Long, TreeSet<Long>> productsByStore = new TreeMap<>();
+        for (StockLevelKey key : keys) {
+            productsByStore.computeIfAbsent(key.getStoreId(), id -> new TreeSet<>()).add(key.getProductId());
+        }
+        Map<StockLevelKey, Integer> quantities = new HashMap<>();
+        productsByStore.forEach((storeId, productIds) -> {
+            List<Long> sorted = new ArrayList<>(productIds);
+            for (int from = 0; from < sorted.size(); from += LOCK_CHUNK_SIZE) {
+                List<Long> chunk = sorted.subList(from, Math.min(from + LOCK_CHUNK_SIZE, sorted.size()));
+                List<Object> args = new ArrayList<>(chunk.size() + 1);
+                args.add(storeId);
+                args.addAll(chunk);
+                jdbcTemplate.query("SELECT product_id, quantity FROM stock_level WHERE store_id = ? AND product_id IN ("
+                        + String.join(", ", Collections.nCopies(chunk.size(), "?"))
+                        + ") ORDER BY product_id FOR UPDATE",
+                        (RowCallbackHandler) rs -> quantities.put(
+                                new StockLevelKey(storeId, rs.getLong("product_id")), rs.getInt("quantity")),
+                        args.toArray());
+            }
+        });
+        return quantities;
+    }
+
+    @Override
+    public Map<Long, Integer> moveAllStock(Long storeId, Long targetStoreId) {
+        List<Long> productIds = jdbcTemplate.queryForList(
+                "SELECT product_id FROM stock_level WHERE store_id = ? AND quantity > 0", Long.class, storeId);
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        List<StockLevelKey> keys = new ArrayList<>(productIds.size() * 2);
+        for (Long productId : productIds) {
+            keys.add(new StockLevelKey(storeId, productId));
+            keys.add(new StockLevelKey(targetStoreId, productId));
+        }
+        // Same lock order as any other transfer touching these rows
+        Map<StockLevelKey, Integer> locked = lockQuantities(keys);
+        Map<Long, Integer> moved = new TreeMap<>();
+        for (Long productId : productIds) {
+            Integer quantity = locked.get(new StockLevelKey(storeId, productId));
+            if (quantity != null && quantity > 0) {
+                moved.put(productId, quantity);
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int credited = isPostgres()
+                ? jdbcTemplate.update(MOVE_ALL_POSTGRES, targetStoreId, now, storeId)
+                : jdbcTemplate.update(MOVE_ALL_H2, storeId, targetStoreId, now, targetStoreId, now);
+        int zeroed = jdbcTemplate.update(
+                "UPDATE stock_level SET quantity = 0, last_updated = ? WHERE store_id = ? AND quantity > 0",
+                now, storeId);
+        // Only a row that turned positive after the sweep, and so was not locked, can tell the
+        // statements apart from the snapshot; give up rather than zero stock that was not moved
+        if (credited != moved.size() || zeroed != moved.size()) {
+            throw new IllegalStateException("Stock of store " + storeId + " changed while it was being moved");
+        }
+        return moved;
+    }
+
+    @Override
+    public List<ProductStockDTO> findInventoryPage(Long storeId, Long afterProductId, int limit) {
+        if (afterProductId == null) {
+            return jdbcTemplate.query(INVENTORY_VIEW + " ORDER BY p.id LIMIT ?", inventoryRowMapper,
+                    storeId, limit);
+        }
+        return jdbcTemplate.query(INVENTORY_VIEW + " AND p.id > ? ORDER BY p.id LIMIT ?", inventoryRowMapper,
+                storeId, afterProductId, limit);
+    }
+
+    @Override
+    public void streamInventory(Long storeId, Consumer<ProductStockDTO> sink) {
+        // The PostgreSQL driver only honours the fetch size inside a transaction; callers run this
+        // read-only so rows arrive in cursor-sized chunks rather than as one materialized result.
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(INVENTORY_VIEW + " ORDER BY p.id");
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setLong(1, storeId);
+            return ps;
+        }, (RowCallbackHandler) rs -> sink.accept(inventoryRowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    @Override
+    public List<ProductStockDTO> findInventoryChanges(Long storeId, LocalDateTime since) {
+        Timestamp after = Timestamp.valueOf(since);
+        return jdbcTemplate.query(INVENTORY_VIEW + CHANGED_SINCE + " ORDER BY p.id", inventoryRowMapper,
+                storeId, after, storeId, after);
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = "PostgreSQL".equals(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
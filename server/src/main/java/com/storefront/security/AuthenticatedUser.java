@@ -0,0 +1,101 @@
+package com.storefront.security;
+
+import com.storefront.model.AppUser;
+import com.storefront.model.Role;
+import com.storefront.model.Store;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Principal of a JWT-authenticated request. Built from token claims and the
+ * {@link UserAuthorityCache}, so it carries no password and needs no entity.
+ */
+public class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String username;
+    private final Role role;
+    private final Set<Long> storeIds;
+    private final List<GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String username, Role role, Set<Long> storeIds) {
+        this.id = id;
+        this.username = username;
+        this.role = role;
+        this.storeIds = Set.copyOf(storeIds);
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    public static AuthenticatedUser of(AppUser user) {
+        Set<Long> storeIds = user.getStores().stream().map(Store::getId).collect(Collectors.toSet());
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole(), storeIds);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Ids of the stores the user is assigned to.
+     */
+    public Set<Long> getStoreIds() {
+        return storeIds;
+    }
+
+    /**
+     * True for roles that may act on every store regardless of assignment.
+     */
+    public boolean isAdmin() {
+        return role == Role.SUPER_ADMIN || role == Role.ADMIN;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[" + id + ", " + username + ", " + role + "]";
+    }
+}
@@ -0,0 +1,17 @@
+package com.storefront.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a controller parameter of type {@link AuthenticatedUser} to the principal of the current
+ * request. Resolved by {@link CurrentUserArgumentResolver} without touching the database.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
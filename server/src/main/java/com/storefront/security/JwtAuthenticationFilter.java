@@ -3,13 +3,12 @@ package com.storefront.security;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -17,6 +16,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.util.StringUtils;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -24,11 +24,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final UserAuthorityCache authorityCache;
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserAuthorityCache authorityCache) {
         this.tokenProvider = tokenProvider;
-        this.userDetailsService = userDetailsService;
+        this.authorityCache = authorityCache;
     }
 
     @Override
@@ -52,28 +52,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     : jwt;
             logger.debug("JWT token extracted: {}", tokenPreview);
 
-            logger.debug("Calling tokenProvider.validateToken()...");
-            boolean isValid = tokenProvider.validateToken(jwt);
-            logger.debug("Token validation result: {}", isValid);
-
-            if (isValid) {
-                logger.debug("Extracting username from JWT...");
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-                logger.debug("Username from token: {}", username);
-
-                logger.debug("Loading user details from database...");
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                logger.debug("User loaded with authorities: {}", userDetails.getAuthorities());
-
-                logger.debug("Creating authentication object...");
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-                logger.debug("Setting authentication in SecurityContext...");
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                logger.debug("✓ AUTHENTICATION SUCCESS - User: {}, Authorities: {}",
-                        username, userDetails.getAuthorities());
+            Optional<Claims> claims = tokenProvider.parseClaims(jwt);
+            logger.debug("Token validation result: {}", claims.isPresent());
+
+            Long userId = claims.map(c -> c.get("userId", Long.class)).orElse(null);
+            if (userId != null) {
+                // Role and stores come from the authority cache rather than the token, so changes
+                // made after login apply without a database read per request
+                Optional<AuthenticatedUser> principal = authorityCache.get(userId);
+                if (principal.isPresent()) {
+                    AuthenticatedUser user = principal.get();
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            user, null, user.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    logger.debug("✓ AUTHENTICATION SUCCESS - User: {}, Authorities: {}",
+                            user.getUsername(), user.getAuthorities());
+                } else {
+                    logger.debug("✗ User {} no longer exists - authentication not set", userId);
+                }
             } else {
                 logger.debug("✗ JWT validation FAILED - authentication not set");
             }
@@ -5,10 +5,15 @@ import org.slf4j.LoggerFactory;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 import java.security.Key;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 public class JwtTokenProvider {
@@ -16,7 +21,24 @@ public class JwtTokenProvider {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
     private Key key;
-    private final long jwtExpirationInMs = 3600000; // 1h
+    private final long jwtExpirationInMs;
+
+    // Tablets resend the same token for its whole lifetime; verified claims are reused by digest
+    private final VerifiedTokenCache verifiedTokens;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public JwtTokenProvider(MeterRegistry meterRegistry,
+            @Value("${storefront.security.token-cache.max-entries:10000}") int maxCachedTokens,
+            @Value("${storefront.security.jwt-expiration-ms:3600000}") long jwtExpirationInMs) {
+        this.jwtExpirationInMs = jwtExpirationInMs;
+        this.verifiedTokens = new VerifiedTokenCache(maxCachedTokens);
+        this.cacheHits = Counter.builder("storefront.jwt.cache.requests").tag("result", "hit")
+                .description("Tokens whose verified claims were served from the cache").register(meterRegistry);
+        this.cacheMisses = Counter.builder("storefront.jwt.cache.requests").tag("result", "miss")
+                .description("Tokens whose signature had to be verified").register(meterRegistry);
+        Gauge.builder("storefront.jwt.cache.size", verifiedTokens, VerifiedTokenCache::size).register(meterRegistry);
+    }
 
     @PostConstruct
     public void init() {
@@ -58,11 +80,38 @@ public class JwtTokenProvider {
     }
 
     public boolean validateToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+
+    /**
+     * Verifies the signature and expiry of a token and returns its claims, parsing it only once.
+     *
+     * @return the claims, or empty if the token is not valid
+     */
+    public Optional<Claims> parseClaims(String authToken) {
+        if (authToken == null || authToken.isEmpty()) {
+            logger.error("✗ JWT claims string is empty");
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        String digest = VerifiedTokenCache.digest(authToken);
+        if (verifiedTokens.isRevoked(digest, now)) {
+            logger.debug("✗ JWT token has been revoked");
+            return Optional.empty();
+        }
+        Claims cached = verifiedTokens.get(digest, now);
+        if (cached != null) {
+            cacheHits.increment();
+            return Optional.of(cached);
+        }
+        cacheMisses.increment();
+
         logger.debug("Validating JWT token...");
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
-            logger.info("✓ JWT token validation SUCCESSFUL");
-            return true;
+            Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken).getBody();
+            logger.debug("✓ JWT token validation SUCCESSFUL");
+            verifiedTokens.put(digest, claims);
+            return Optional.of(claims);
         } catch (io.jsonwebtoken.security.SecurityException ex) {
             logger.error("✗ Invalid JWT signature: {}", ex.getMessage(), ex);
         } catch (io.jsonwebtoken.MalformedJwtException ex) {
@@ -76,6 +125,14 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             logger.error("✗ Unexpected error validating JWT: {}", ex.getMessage(), ex);
         }
-        return false;
+        return Optional.empty();
+    }
+
+    /**
+     * Rejects {@code authToken} from now until it expires. Invalid tokens are ignored.
+     */
+    public void revoke(String authToken) {
+        parseClaims(authToken).ifPresent(claims -> verifiedTokens.revoke(VerifiedTokenCache.digest(authToken),
+                claims.getExpiration().getTime(), System.currentTimeMillis()));
     }
 }
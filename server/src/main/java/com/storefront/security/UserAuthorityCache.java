@@ -0,0 +1,108 @@
+package com.storefront.security;
+
+import com.storefront.event.UserChangedEvent;
+import com.storefront.repository.AppUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of each user's current role and store assignments, keyed by user id. JWT
+ * authentication reads it instead of loading app_user on every request, so a user costs one
+ * query per storefront.security.authority-cache-ttl-ms at most.
+ *
+ * Token claims are only as fresh as the login that issued them; entries here are what makes a
+ * role change or a deleted account take effect before the token expires. Updates and deletes
+ * evict the user immediately and again when the writing transaction completes.
+ */
+@Component
+public class UserAuthorityCache {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private final AppUserRepository userRepository;
+    private final long ttlNanos;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction; loads remember the value they started from
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserAuthorityCache(AppUserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${storefront.security.authority-cache-ttl-ms:30000}") long ttlMillis) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttlMillis * 1_000_000;
+        this.hits = Counter.builder("storefront.auth.authority.cache.requests").tag("result", "hit")
+                .description("Authority lookups served from the cache").register(meterRegistry);
+        this.misses = Counter.builder("storefront.auth.authority.cache.requests").tag("result", "miss")
+                .description("Authority lookups that went to the database").register(meterRegistry);
+    }
+
+    /**
+     * The user's current authorities, or empty if the account no longer exists.
+     */
+    public Optional<AuthenticatedUser> get(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            return Optional.ofNullable(entry.user);
+        }
+        misses.increment();
+
+        long started = generation.get();
+        AuthenticatedUser user = userRepository.findById(userId).map(AuthenticatedUser::of).orElse(null);
+        if (entries.size() >= PURGE_THRESHOLD) {
+            entries.values().removeIf(e -> now - e.loadedAt >= ttlNanos);
+        }
+        entries.put(userId, new Entry(user, now));
+        // Something was evicted while we were reading; the loaded value may predate it
+        if (generation.get() != started) {
+            entries.remove(userId);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public void invalidate(Long userId) {
+        evict(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long userId) {
+        generation.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    private static final class Entry {
+        final AuthenticatedUser user;
+        final long loadedAt;
+
+        Entry(AuthenticatedUser user, long loadedAt) {
+            this.user = user;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.storefront.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded LRU map from token digest to the claims of a token whose signature has already been
+ * verified, plus the digests of revoked tokens. Keys are SHA-256 digests, so raw tokens are never
+ * retained. Entries are dropped when their token expires; revocations are kept only until then.
+ */
+class VerifiedTokenCache {
+
+    private final int maxEntries;
+    private final Map<String, Claims> entries;
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    VerifiedTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Claims> eldest) {
+                return size() > VerifiedTokenCache.this.maxEntries;
+            }
+        };
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Claims cached for {@code digest}, or null when absent or expired.
+     */
+    Claims get(String digest, long nowMillis) {
+        synchronized (entries) {
+            Claims claims = entries.get(digest);
+            if (claims != null && isExpired(claims, nowMillis)) {
+                entries.remove(digest);
+                return null;
+            }
+            return claims;
+        }
+    }
+
+    void put(String digest, Claims claims) {
+        if (maxEntries <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(digest, claims);
+        }
+    }
+
+    boolean isRevoked(String digest, long nowMillis) {
+        Long until = revoked.get(digest);
+        return until != null && until > nowMillis;
+    }
+
+    void revoke(String digest, long expiresAtMillis, long nowMillis) {
+        revoked.values().removeIf(until -> until <= nowMillis);
+        revoked.put(digest, expiresAtMillis);
+        synchronized (entries) {
+            entries.remove(digest);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static boolean isExpired(Claims claims, long nowMillis) {
+        return claims.getExpiration() != null && claims.getExpiration().getTime() <= nowMillis;
+    }
+}
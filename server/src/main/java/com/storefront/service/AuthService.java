@@ -4,6 +4,7 @@ import com.storefront.model.AppUser;
 import com.storefront.model.Role;
 import com.storefront.repository.AppUserRepository;
 import com.storefront.security.JwtTokenProvider;
+import com.storefront.security.UserAuthorityCache;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
@@ -15,14 +16,17 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtTokenProvider tokenProvider;
     private final com.storefront.repository.StoreRepository storeRepository;
+    private final UserAuthorityCache authorityCache;
 
     public AuthService(AppUserRepository userRepository, PasswordEncoder passwordEncoder,
             JwtTokenProvider tokenProvider,
-            com.storefront.repository.StoreRepository storeRepository) {
+            com.storefront.repository.StoreRepository storeRepository,
+            UserAuthorityCache authorityCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.tokenProvider = tokenProvider;
         this.storeRepository = storeRepository;
+        this.authorityCache = authorityCache;
     }
 
     public AppUser register(String username, String password, Role role) {
@@ -72,8 +76,16 @@ public class AuthService {
         return tokenProvider.generateToken(user.getUsername(), user.getRole().name(), user.getId());
     }
 
+    /**
+     * Revokes {@code token} so it is rejected for the rest of its lifetime.
+     */
+    public void logout(String token) {
+        tokenProvider.revoke(token);
+    }
+
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        authorityCache.invalidate(id);
     }
 
     public AppUser getUserById(Long id) {
@@ -95,6 +107,8 @@ public class AuthService {
             user.setStores(newStores);
         }
 
-        return userRepository.save(user);
+        AppUser saved = userRepository.save(user);
+        authorityCache.invalidate(id);
+        return saved;
     }
 }
@@ -1,56 +1,78 @@
 package com.storefront.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Looks up book details by ISBN in the Google Books API. Calls are bounded by the configured
+ * connect and read timeouts; a failed or empty lookup is reported as not found. Callers should
+ * not hold a database transaction open across a lookup.
+ */
 @Service
 public class BookService {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookService.class);
+
     private final RestTemplate restTemplate;
-    private final ObjectMapper objectMapper;
-    private static final String GOOGLE_BOOKS_API_URL = "https://www.googleapis.com/books/v1/volumes?q=isbn:";
+    private final String apiUrl;
 
-    public BookService() {
-        this.restTemplate = new RestTemplate();
-        this.objectMapper = new ObjectMapper();
+    public BookService(RestTemplateBuilder restTemplateBuilder,
+            @Value("${storefront.books.api-url:https://www.googleapis.com/books/v1/volumes?q=isbn:}") String apiUrl,
+            @Value("${storefront.books.connect-timeout-ms:2000}") long connectTimeoutMillis,
+            @Value("${storefront.books.read-timeout-ms:5000}") long readTimeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .setReadTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+        this.apiUrl = apiUrl;
     }
 
-    public Optional<Map<String, Object>> fetchBookDetails(String isbn) {
+    public Optional<BookDetails> fetchBookDetails(String isbn) {
+        JsonNode root;
         try {
-            String url = GOOGLE_BOOKS_API_URL + isbn;
-            JsonNode root = restTemplate.getForObject(url, JsonNode.class);
-
-            if (root != null && root.has("items") && root.get("items").isArray() && root.get("items").size() > 0) {
-                JsonNode volumeInfo = root.get("items").get(0).get("volumeInfo");
-
-                Map<String, Object> details = new HashMap<>();
-                details.put("title", volumeInfo.path("title").asText("Unknown Title"));
-                details.put("authors", volumeInfo.path("authors")); // Array node
-                details.put("publisher", volumeInfo.path("publisher").asText("Unknown"));
-                details.put("description", volumeInfo.path("description").asText(""));
-                details.put("pageCount", volumeInfo.path("pageCount").asInt(0));
-
-                // Google Books rarely gives price in public API, defaulting or looking at
-                // saleInfo
-                JsonNode saleInfo = root.get("items").get(0).get("saleInfo");
-                if (saleInfo.has("listPrice")) {
-                    details.put("price", new BigDecimal(saleInfo.get("listPrice").get("amount").asText()));
-                } else {
-                    details.put("price", BigDecimal.ZERO); // Needs manual entry
-                }
-
-                return Optional.of(details);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            root = restTemplate.getForObject(apiUrl + isbn, JsonNode.class);
+        } catch (RestClientException e) {
+            logger.warn("Book lookup for ISBN {} failed: {}", isbn, e.getMessage());
+            return Optional.empty();
+        }
+        if (root == null || !root.path("items").isArray() || root.path("items").isEmpty()) {
+            return Optional.empty();
+        }
+
+        JsonNode item = root.path("items").get(0);
+        JsonNode volumeInfo = item.path("volumeInfo");
+        List<String> authors = new ArrayList<>();
+        for (JsonNode author : volumeInfo.path("authors")) {
+            authors.add(author.asText());
         }
-        return Optional.empty();
+        // Google Books rarely gives a price in the public API; without one it needs manual entry
+        JsonNode listPrice = item.path("saleInfo").path("listPrice").path("amount");
+        return Optional.of(new BookDetails(isbn,
+                volumeInfo.path("title").asText("Unknown Title"),
+                authors.isEmpty() ? null : String.join(", ", authors),
+                volumeInfo.path("publisher").asText("Unknown"),
+                volumeInfo.path("description").asText(""),
+                volumeInfo.path("pageCount").asInt(0),
+                listPrice.isNumber() ? listPrice.decimalValue() : null));
+    }
+
+    /**
+     * Book details of one ISBN. {@code authors} is a comma-separated list; {@code listPrice} is
+     * null when the API has none.
+     */
+    public record BookDetails(String isbn, String title, String authors, String publisher, String description,
+            int pageCount, BigDecimal listPrice) {
     }
 }
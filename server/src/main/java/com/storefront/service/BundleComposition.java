@@ -0,0 +1,84 @@
+package com.storefront.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Materialized contents of one bundle: parallel arrays of component product ids, SKUs and
+ * per-bundle quantities, ordered by product id. Instances are immutable and tagged with the
+ * catalog version they were built from; any change to the bundle produces a new instance with
+ * a higher version.
+ *
+ * Callers scale a whole order line with {@link #quantity(int)} times the bundle count instead
+ * of walking the components once per bundle unit.
+ */
+public final class BundleComposition {
+
+    private final long bundleId;
+    private final long version;
+    private final long[] productIds;
+    private final String[] skus;
+    private final int[] quantities;
+
+    BundleComposition(long bundleId, long version, long[] productIds, String[] skus, int[] quantities) {
+        this.bundleId = bundleId;
+        this.version = version;
+        this.productIds = productIds;
+        this.skus = skus;
+        this.quantities = quantities;
+    }
+
+    static BundleComposition of(long bundleId, long version, Collection<Component> components) {
+        Component[] sorted = components.toArray(new Component[0]);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a.productId, b.productId));
+        long[] productIds = new long[sorted.length];
+        String[] skus = new String[sorted.length];
+        int[] quantities = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            productIds[i] = sorted[i].productId;
+            skus[i] = sorted[i].sku;
+            quantities[i] = sorted[i].quantity;
+        }
+        return new BundleComposition(bundleId, version, productIds, skus, quantities);
+    }
+
+    public long getBundleId() {
+        return bundleId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public long productId(int index) {
+        return productIds[index];
+    }
+
+    public String sku(int index) {
+        return skus[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Component flags for one order line: true where the component SKU is in {@code excludedSkus}.
+     */
+    public boolean[] exclusions(Collection<String> excludedSkus) {
+        boolean[] excluded = new boolean[skus.length];
+        if (excludedSkus != null && !excludedSkus.isEmpty()) {
+            for (int i = 0; i < skus.length; i++) {
+                excluded[i] = excludedSkus.contains(skus[i]);
+            }
+        }
+        return excluded;
+    }
+
+    record Component(long productId, String sku, int quantity) {
+    }
+}
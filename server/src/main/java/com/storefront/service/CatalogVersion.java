@@ -0,0 +1,114 @@
+package com.storefront.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.event.CatalogChangedEvent;
+import com.storefront.event.UserChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Version of the rarely changing listings (products, bundles, stores), exposed as a strong ETag,
+ * together with the serialized body of each listing at that version. Clients polling with
+ * If-None-Match are answered from the version alone, and repeated full responses are a copy of
+ * cached bytes.
+ *
+ * The version moves on every {@link CatalogChangedEvent}, on store creation and on user changes
+ * (stores embed their owner): immediately, and again when the writing transaction completes. A
+ * body whose load overlapped a change is not kept, as in {@link SkuCache}.
+ */
+@Service
+public class CatalogVersion {
+
+    public record Payload(String etag, byte[] body) {
+    }
+
+    private record Entry(long version, Payload payload) {
+    }
+
+    // Distinguishes the versions of this process from those a client kept from an earlier one
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final Map<String, Entry> payloads = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper;
+
+    public CatalogVersion(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public String etag() {
+        return etag(version.get());
+    }
+
+    /**
+     * Body of the listing {@code resource} at the current version, serialized from
+     * {@code loader} when it is not cached yet.
+     */
+    public Payload payload(String resource, Supplier<?> loader) {
+        long current = version.get();
+        Entry entry = payloads.get(resource);
+        if (entry != null && entry.version() == current) {
+            return entry.payload();
+        }
+        Payload payload;
+        try {
+            payload = new Payload(etag(current), objectMapper.writeValueAsBytes(loader.get()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        // Something changed while we were reading; serve this body but do not keep it
+        if (version.get() == current) {
+            payloads.put(resource, new Entry(current, payload));
+        }
+        return payload;
+    }
+
+    /**
+     * Response for a GET of the listing {@code resource}: answers If-None-Match from the version
+     * alone (null, with the 304 already set on {@code request}), otherwise the cached body.
+     */
+    public ResponseEntity<byte[]> listing(WebRequest request, String resource, Supplier<?> loader) {
+        if (request.checkNotModified(etag())) {
+            return null;
+        }
+        Payload payload = payload(resource, loader);
+        return ResponseEntity.ok().eTag(payload.etag()).contentType(MediaType.APPLICATION_JSON).body(payload.body());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        bump();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        bump();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+}
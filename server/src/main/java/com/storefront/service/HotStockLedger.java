@@ -0,0 +1,370 @@
+package com.storefront.service;
+
+import com.storefront.model.StockDelta;
+import com.storefront.model.Store;
+import com.storefront.repository.StockLevelRepository;
+import com.storefront.repository.StoreRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Optional "hot inventory" mode for busy virtual stores.
+ *
+ * Quantities of configured stores live in memory as CAS counters keyed by (storeId, productId)
+ * packed into one long. Sales reserve against the counters instead of locking stock_level rows,
+ * and a background flusher writes the accumulated deltas to stock_level in JDBC batches.
+ *
+ * Every delta is appended to a local journal before it becomes visible. On startup, journal
+ * records above the checkpoint stored in stock_ledger_checkpoint are replayed into stock_level.
+ * Reservations are journaled immediately, forced to disk before the surrounding transaction
+ * commits (concurrent commits share one force) and compensated if it rolls back; credits are
+ * applied only after commit. A crash, including a host or power loss, can therefore under-count
+ * stock (a journaled reservation whose order never committed, or a committed credit not yet
+ * journaled) but never over-count it.
+ *
+ * While the mode is on, every stock change for a hot store must go through this ledger;
+ * stock_level for those stores trails the ledger by at most one flush interval.
+ */
+@Service
+public class HotStockLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotStockLedger.class);
+
+    private final Set<Long> configuredStoreIds;
+    private final Path journalPath;
+    private final StoreRepository storeRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTransaction;
+
+    private final Map<Long, Cell> cells = new ConcurrentHashMap<>();
+    // Writers share the read lock; the flusher takes the write lock to snapshot pending deltas
+    // and the journal position consistently.
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    private volatile Set<Long> hotStoreIds = Collections.emptySet();
+    private StockDeltaJournal journal;
+    private long checkpointedSeq;
+
+    public HotStockLedger(@Value("${storefront.inventory.hot-stores:}") Set<Long> hotStoreIds,
+            @Value("${storefront.inventory.journal-path:./data/stock-ledger.journal}") Path journalPath,
+            StoreRepository storeRepository, StockLevelRepository stockLevelRepository,
+            JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.configuredStoreIds = hotStoreIds;
+        this.journalPath = journalPath;
+        this.storeRepository = storeRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushTransaction = new TransactionTemplate(transactionManager);
+        this.flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (configuredStoreIds.isEmpty()) {
+            return;
+        }
+        Set<Long> valid = new HashSet<>();
+        for (Long storeId : configuredStoreIds) {
+            Store store = storeRepository.findById(storeId).orElse(null);
+            if (store == null || store.getType() != Store.StoreType.VIRTUAL) {
+                logger.warn("Ignoring hot inventory store {}: only existing VIRTUAL stores can be hot", storeId);
+                continue;
+            }
+            valid.add(storeId);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        journal = new StockDeltaJournal(journalPath);
+        recover();
+        hotStoreIds = Collections.unmodifiableSet(valid);
+        logger.info("Hot inventory mode enabled for stores {} (journal {})", hotStoreIds, journalPath);
+    }
+
+    public boolean isHot(Long storeId) {
+        return hotStoreIds.contains(storeId);
+    }
+
+    /**
+     * Takes the requested quantities from a hot store, all or nothing. Callers pass products in
+     * a stable order. Throws IllegalArgumentException on the first shortfall.
+     */
+    public void reserve(Long storeId, Map<Long, Integer> demand, Function<Long, String> skuOf) {
+        List<StockDelta> taken = new ArrayList<>();
+        long seq = 0;
+        snapshotLock.readLock().lock();
+        try {
+            for (Map.Entry<Long, Integer> entry : demand.entrySet()) {
+                Cell cell = cell(storeId, entry.getKey());
+                if (!cell.tryTake(entry.getValue())) {
+                    for (StockDelta delta : taken) {
+                        cell(storeId, delta.getProductId()).available.addAndGet(-delta.getQuantity());
+                    }
+                    throw new IllegalArgumentException("Insufficient stock for " + skuOf.apply(entry.getKey())
+                            + ". Available: " + cell.available.get());
+                }
+                taken.add(new StockDelta(storeId, entry.getKey(), -entry.getValue()));
+            }
+            for (StockDelta delta : taken) {
+                seq = record(delta);
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+
+        long reservedSeq = seq;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Fails the commit, and so releases the stock, if the journal cannot be forced
+                    journal.syncTo(reservedSeq);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        List<StockDelta> released = new ArrayList<>();
+                        for (StockDelta delta : taken) {
+                            released.add(new StockDelta(storeId, delta.getProductId(), -delta.getQuantity()));
+                        }
+                        apply(released);
+                    }
+                }
+            });
+        } else {
+            journal.syncTo(reservedSeq);
+        }
+    }
+
+    /**
+     * Adds stock to a hot store once the surrounding transaction commits.
+     */
+    public void credit(Long storeId, Long productId, int quantity) {
+        afterCommit(() -> apply(List.of(new StockDelta(storeId, productId, quantity))));
+    }
+
+    /**
+     * Sets the absolute quantity of a hot store item (stock counts) once the surrounding
+     * transaction commits.
+     */
+    public void adjustTo(Long storeId, Long productId, int quantity) {
+        afterCommit(() -> {
+            snapshotLock.readLock().lock();
+            try {
+                int previous = cell(storeId, productId).available.getAndSet(quantity);
+                if (previous != quantity) {
+                    record(new StockDelta(storeId, productId, quantity - previous));
+                }
+                if (quantity < previous) {
+                    // A lost decrease would over-count; counts are rare enough to force each one
+                    journal.sync();
+                }
+            } finally {
+                snapshotLock.readLock().unlock();
+            }
+        });
+    }
+
+    public int available(Long storeId, Long productId) {
+        return cell(storeId, productId).available.get();
+    }
+
+    /**
+     * Current quantities of the items of a store that are held in memory. Items not listed have
+     * no pending deltas, so stock_level is exact for them.
+     */
+    public Map<Long, Integer> availableByProduct(Long storeId) {
+        Map<Long, Integer> result = new HashMap<>();
+        cells.forEach((key, cell) -> {
+            if (storeOf(key) == storeId) {
+                result.put(productOf(key), cell.available.get());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Writes accumulated deltas to stock_level in one batch and advances the checkpoint.
+     */
+    @Scheduled(fixedDelayString = "${storefront.inventory.hot-flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (journal == null) {
+            return;
+        }
+        List<StockDelta> batch = new ArrayList<>();
+        long seq;
+        snapshotLock.writeLock().lock();
+        try {
+            cells.forEach((key, cell) -> {
+                int delta = cell.pending.getAndSet(0);
+                if (delta != 0) {
+                    batch.add(new StockDelta(storeOf(key), productOf(key), delta));
+                }
+            });
+            seq = journal.lastSeq();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+
+        journal.sync();
+        if (seq == checkpointedSeq) {
+            return;
+        }
+        try {
+            persist(batch, seq);
+        } catch (RuntimeException e) {
+            // Keep the deltas for the next cycle; the journal still covers them
+            for (StockDelta delta : batch) {
+                cells.get(key(delta.getStoreId(), delta.getProductId())).pending.addAndGet(delta.getQuantity());
+            }
+            logger.error("Hot inventory flush failed, {} deltas will be retried: {}", batch.size(), e.getMessage());
+            return;
+        }
+        journal.truncateIfCheckpointed(seq);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    private void recover() {
+        checkpointedSeq = jdbcTemplate.queryForObject(
+                "SELECT last_seq FROM stock_ledger_checkpoint WHERE id = 1", Long.class);
+        List<StockDeltaJournal.Entry> entries = journal.open(checkpointedSeq);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> net = new HashMap<>();
+        long maxSeq = checkpointedSeq;
+        for (StockDeltaJournal.Entry entry : entries) {
+            net.merge(key(entry.delta.getStoreId(), entry.delta.getProductId()), entry.delta.getQuantity(),
+                    Integer::sum);
+            maxSeq = Math.max(maxSeq, entry.seq);
+        }
+        List<StockDelta> batch = new ArrayList<>();
+        net.forEach((key, delta) -> {
+            if (delta != 0) {
+                batch.add(new StockDelta(storeOf(key), productOf(key), delta));
+            }
+        });
+        persist(batch, maxSeq);
+        journal.truncateIfCheckpointed(maxSeq);
+        logger.info("Recovered {} stock journal records up to sequence {}", entries.size(), maxSeq);
+    }
+
+    private void persist(List<StockDelta> batch, long seq) {
+        flushTransaction.executeWithoutResult(status -> {
+            stockLevelRepository.addQuantities(batch);
+            jdbcTemplate.update("UPDATE stock_ledger_checkpoint SET last_seq = ? WHERE id = 1", seq);
+        });
+        checkpointedSeq = seq;
+    }
+
+    private void apply(List<StockDelta> deltas) {
+        snapshotLock.readLock().lock();
+        try {
+            for (StockDelta delta : deltas) {
+                cell(delta.getStoreId(), delta.getProductId()).available.addAndGet(delta.getQuantity());
+                record(delta);
+            }
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    // Caller holds the snapshot read lock
+    private long record(StockDelta delta) {
+        long seq = journal.append(delta);
+        cells.get(key(delta.getStoreId(), delta.getProductId())).pending.addAndGet(delta.getQuantity());
+        return seq;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Cell cell(Long storeId, Long productId) {
+        // First touch loads the persisted quantity; from then on the ledger owns the value
+        return cells.computeIfAbsent(key(storeId, productId),
+                k -> new Cell(stockLevelRepository.findQuantity(storeId, productId).orElse(0)));
+    }
+
+    private static long key(Long storeId, Long productId) {
+        if (storeId > Integer.MAX_VALUE || productId > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Store or product id out of hot ledger key range");
+        }
+        return (storeId << 32) | productId;
+    }
+
+    private static long storeOf(long key) {
+        return key >>> 32;
+    }
+
+    private static long productOf(long key) {
+        return key & 0xFFFFFFFFL;
+    }
+
+    private static final class Cell {
+        final AtomicInteger available;
+        // Net change not yet written to stock_level
+        final AtomicInteger pending = new AtomicInteger();
+
+        Cell(int available) {
+            this.available = new AtomicInteger(available);
+        }
+
+        boolean tryTake(int quantity) {
+            while (true) {
+                int current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - quantity)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
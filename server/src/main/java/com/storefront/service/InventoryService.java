@@ -3,10 +3,12 @@ package com.storefront.service;
 import com.storefront.dto.BundleDTO;
 import com.storefront.model.*;
 import com.storefront.repository.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.domain.Specification;
-import jakarta.persistence.criteria.Predicate;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,22 +16,38 @@ import java.util.stream.Collectors;
 @Transactional
 public class InventoryService {
 
+        private static final int MAX_PAGE_SIZE = 1000;
+        private static final int MAX_SEARCH_HITS = 1000;
+
         private final ProductRepository productRepository;
         private final BundleRepository bundleRepository;
         private final BundleItemRepository bundleItemRepository;
         private final StockLevelRepository stockLevelRepository;
         private final StoreRepository storeRepository;
-        private final BookService bookService;
+        private final StoreTopology storeTopology;
+        private final HotStockLedger hotStockLedger;
+        private final SkuCache skuCache;
+        private final ProductSearchIndex productSearchIndex;
+        private final Duration syncOverlap;
+        private final StockEventHub stockEventHub;
 
         public InventoryService(ProductRepository productRepository, BundleRepository bundleRepository,
                         BundleItemRepository bundleItemRepository, StockLevelRepository stockLevelRepository,
-                        StoreRepository storeRepository, BookService bookService) {
+                        StoreRepository storeRepository, StoreTopology storeTopology, HotStockLedger hotStockLedger,
+                        SkuCache skuCache, ProductSearchIndex productSearchIndex,
+                        @Value("${storefront.inventory.sync-overlap-ms:5000}") long syncOverlapMs,
+                        StockEventHub stockEventHub) {
                 this.productRepository = productRepository;
                 this.bundleRepository = bundleRepository;
                 this.bundleItemRepository = bundleItemRepository;
                 this.stockLevelRepository = stockLevelRepository;
                 this.storeRepository = storeRepository;
-                this.bookService = bookService;
+                this.storeTopology = storeTopology;
+                this.hotStockLedger = hotStockLedger;
+                this.skuCache = skuCache;
+                this.productSearchIndex = productSearchIndex;
+                this.syncOverlap = Duration.ofMillis(syncOverlapMs);
+                this.stockEventHub = stockEventHub;
         }
 
         public Product createProduct(Product product) {
@@ -56,128 +74,198 @@ public class InventoryService {
         }
 
         public StockLevel addStock(String sku, int quantity) {
-                Product product = productRepository.findBySku(sku)
+                SkuDescriptor descriptor = skuCache.resolve(sku)
+                                .filter(d -> !d.isBundle())
                                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + sku));
 
-                Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                                .orElseThrow(() -> new IllegalStateException("Master Store not found initialized"));
+                Long masterStoreId = storeTopology.masterStoreId();
 
                 StockLevel stockLevel = stockLevelRepository
-                                .findByStoreIdAndProductId(masterStore.getId(), product.getId())
-                                .orElse(new StockLevel(masterStore, product, 0));
+                                .findByStoreIdAndProductId(masterStoreId, descriptor.getId())
+                                .orElseGet(() -> new StockLevel(storeRepository.getReferenceById(masterStoreId),
+                                                productRepository.findById(descriptor.getId()).orElseThrow(), 0));
 
                 stockLevel.setQuantity(stockLevel.getQuantity() + quantity);
+                stockEventHub.publishLevel(masterStoreId, descriptor.getId(), sku, quantity, stockLevel.getQuantity());
                 return stockLevelRepository.save(stockLevel);
         }
 
         public List<com.storefront.dto.ProductStockDTO> getInventoryView(Long storeId) {
-                Long targetStoreId;
-                if (storeId == null) {
-                        Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                                        .orElseThrow(() -> new IllegalStateException(
-                                                        "Master Store not found initialized"));
-                        targetStoreId = masterStore.getId();
-                } else {
-                        targetStoreId = storeId;
-                }
-
-                List<Product> products = productRepository.findAll(); // Returns active only due to repository override
-                List<StockLevel> stocks = stockLevelRepository.findByStoreId(targetStoreId);
-
-                // Map product ID to stock quantity for efficient lookup
-                java.util.Map<Long, Integer> stockMap = stocks.stream()
-                                .collect(java.util.stream.Collectors.toMap(
-                                                s -> s.getProduct().getId(),
-                                                StockLevel::getQuantity));
-
-                return products.stream()
-                                .map(p -> new com.storefront.dto.ProductStockDTO(
-                                                p.getId(),
-                                                p.getSku(),
-                                                p.getName(),
-                                                p.getType(),
-                                                p.getBasePrice(),
-                                                stockMap.getOrDefault(p.getId(), 0),
-                                                p.getAttributes()))
-                                .collect(java.util.stream.Collectors.toList());
+                List<com.storefront.dto.ProductStockDTO> view = new ArrayList<>();
+                streamInventoryView(storeId, view::add);
+                return view;
         }
 
-        public List<com.storefront.dto.ProductStockDTO> getInventoryView() {
-                return getInventoryView(null);
+        /**
+         * Keyset page of the inventory view: up to {@code limit} products with an id greater than
+         * {@code afterId}. {@code nextAfter} of the result is the cursor for the following page, or null
+         * on the last one.
+         */
+        @Transactional(readOnly = true)
+        public com.storefront.dto.InventoryPageDTO getInventoryPage(Long storeId, Long afterId, int limit) {
+                if (limit < 1 || limit > MAX_PAGE_SIZE) {
+                        throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+                }
+                Long targetStoreId = resolveViewStoreId(storeId);
+                Map<Long, Integer> hot = hotQuantities(targetStoreId);
+                List<com.storefront.dto.ProductStockDTO> items = stockLevelRepository
+                                .findInventoryPage(targetStoreId, afterId, limit).stream()
+                                .map(row -> withHotQuantity(row, hot))
+                                .collect(Collectors.toList());
+                Long nextAfter = items.size() == limit ? items.get(items.size() - 1).getId() : null;
+                return new com.storefront.dto.InventoryPageDTO(items, nextAfter);
         }
 
-        public Product ingestBook(String isbn, int quantity, Double manualPrice) {
-                Optional<Product> existing = productRepository.findBySku(isbn);
-                Product product;
-
-                if (existing.isPresent()) {
-                        product = existing.get();
-                        // Optional: Update price if provided for existing product?
-                        if (manualPrice != null) {
-                                product.setBasePrice(java.math.BigDecimal.valueOf(manualPrice));
-                                productRepository.save(product);
-                        }
-                } else {
-                        java.util.Map<String, Object> details = bookService.fetchBookDetails(isbn)
-                                        .orElseThrow(() -> new IllegalArgumentException(
-                                                        "Book not found for ISBN: " + isbn));
-
-                        String name = (String) details.get("title");
-                        java.math.BigDecimal price;
-
-                        if (manualPrice != null) {
-                                price = java.math.BigDecimal.valueOf(manualPrice);
-                        } else {
-                                price = (java.math.BigDecimal) details.get("price");
-                                if (price == null)
-                                        price = java.math.BigDecimal.ZERO;
-                        }
+        /**
+         * Hands the inventory view of a store to {@code sink} one row at a time, straight from a
+         * product/stock_level join, so memory use does not grow with the catalog.
+         */
+        @Transactional(readOnly = true)
+        public void streamInventoryView(Long storeId, java.util.function.Consumer<com.storefront.dto.ProductStockDTO> sink) {
+                Long targetStoreId = resolveViewStoreId(storeId);
+                Map<Long, Integer> hot = hotQuantities(targetStoreId);
+                stockLevelRepository.streamInventory(targetStoreId, row -> sink.accept(withHotQuantity(row, hot)));
+        }
 
-                        // Create BookAttributes
-                        com.storefront.model.attributes.BookAttributes attributes = new com.storefront.model.attributes.BookAttributes();
-                        attributes.setAuthor((String) details.get("authors"));
-                        attributes.setPublisher((String) details.get("publisher"));
+        /**
+         * Inventory view rows changed after {@code since}, plus tombstones of the products
+         * deactivated since then; the whole view when {@code since} is null. The returned watermark
+         * is the {@code since} of the next call. It trails the read by storefront.inventory.sync-overlap-ms,
+         * because rows are stamped before their transaction commits: a write still in flight now
+         * shows up in the next delta instead of being skipped, at the price of resending a few rows.
+         */
+        @Transactional(readOnly = true)
+        public com.storefront.dto.InventoryDeltaDTO getInventoryChanges(Long storeId, LocalDateTime since) {
+                Long targetStoreId = resolveViewStoreId(storeId);
+                LocalDateTime watermark = LocalDateTime.now().minus(syncOverlap);
+                Map<Long, Integer> hot = hotQuantities(targetStoreId);
+                List<com.storefront.dto.ProductStockDTO> items = new ArrayList<>();
+                if (since == null) {
+                        stockLevelRepository.streamInventory(targetStoreId, row -> items.add(withHotQuantity(row, hot)));
+                        return new com.storefront.dto.InventoryDeltaDTO(items, List.of(), watermark, true);
+                }
+                stockLevelRepository.findInventoryChanges(targetStoreId, since)
+                                .forEach(row -> items.add(withHotQuantity(row, hot)));
+                return new com.storefront.dto.InventoryDeltaDTO(items, productRepository.findRemovedSince(since),
+                                watermark, false);
+        }
 
-                        product = new Product(isbn, "BOOK", name, price, attributes);
-                        product = productRepository.save(product);
+        private Long resolveViewStoreId(Long storeId) {
+                if (storeId != null) {
+                        return storeId;
                 }
+                return storeTopology.masterStoreId();
+        }
 
-                if (quantity > 0) {
-                        addStock(product.getSku(), quantity);
+        private Map<Long, Integer> hotQuantities(Long storeId) {
+                // stock_level may trail the in-memory ledger by one flush interval
+                return hotStockLedger.isHot(storeId) ? hotStockLedger.availableByProduct(storeId) : Map.of();
+        }
+
+        private com.storefront.dto.ProductStockDTO withHotQuantity(com.storefront.dto.ProductStockDTO row,
+                        Map<Long, Integer> hot) {
+                Integer quantity = hot.get(row.getId());
+                if (quantity == null) {
+                        return row;
                 }
+                return new com.storefront.dto.ProductStockDTO(row.getId(), row.getSku(), row.getName(), row.getType(),
+                                row.getPrice(), quantity, row.getAttributes());
+        }
 
-                return product;
+        public List<com.storefront.dto.ProductStockDTO> getInventoryView() {
+                return getInventoryView(null);
         }
 
+        /**
+         * Stock of a store, optionally narrowed to products matching {@code query} in the
+         * {@link ProductSearchIndex} and ordered by relevance. The best {@value #MAX_SEARCH_HITS}
+         * matches among the store's own stock are returned. Deactivated products are not indexed,
+         * so a query does not find them even where the store still holds stock of them.
+         */
         public List<StockLevel> searchInventory(Long storeId, String query) {
                 Specification<StockLevel> spec = Specification
                                 .where((root, q, cb) -> cb.equal(root.get("store").get("id"), storeId));
+                if (query == null || query.isEmpty()) {
+                        return stockLevelRepository.findAll(spec);
+                }
 
-                if (query != null && !query.isEmpty()) {
-                        spec = spec.and((root, q, cb) -> {
-                                String likePattern = "%" + query.toLowerCase() + "%";
-                                Predicate nameMatch = cb.like(cb.lower(root.get("product").get("name")), likePattern);
-                                // Search in JSON attributes - naive text search
-                                Predicate attrMatch = cb.like(
-                                                cb.lower(root.get("product").get("attributes").as(String.class)),
-                                                likePattern);
-
-                                return cb.or(nameMatch, attrMatch);
-                        });
+                Map<Long, Integer> rank = rankByProductId(storeId, query);
+                if (rank.isEmpty()) {
+                        return List.of();
                 }
+                spec = spec.and((root, q, cb) -> root.get("product").get("id").in(rank.keySet()));
+                List<StockLevel> matches = new ArrayList<>(stockLevelRepository.findAll(spec));
+                matches.sort(Comparator.comparing(s -> rank.get(s.getProduct().getId())));
+                return matches;
+        }
 
-                return stockLevelRepository.findAll(spec);
+        /**
+         * Same matching as {@link #searchInventory}, returned as flat summary rows from a single
+         * projection query.
+         */
+        @Transactional(readOnly = true)
+        public List<com.storefront.dto.StockSummaryDTO> searchInventorySummary(Long storeId, String query) {
+                if (query == null || query.isEmpty()) {
+                        return stockLevelRepository.findSummaryByStoreId(storeId);
+                }
+                List<ProductSearchIndex.Hit> hits = searchStock(storeId, query);
+                if (hits.isEmpty()) {
+                        return List.of();
+                }
+                Map<String, Integer> rank = new HashMap<>();
+                List<Long> productIds = new ArrayList<>(hits.size());
+                for (ProductSearchIndex.Hit hit : hits) {
+                        rank.put(hit.sku(), rank.size());
+                        productIds.add(hit.productId());
+                }
+                List<com.storefront.dto.StockSummaryDTO> matches = new ArrayList<>(
+                                stockLevelRepository.findSummaryByStoreIdAndProductIdIn(storeId, productIds));
+                matches.sort(Comparator.comparing(row -> rank.get(row.getSku())));
+                return matches;
+        }
+
+        private Map<Long, Integer> rankByProductId(Long storeId, String query) {
+                Map<Long, Integer> rank = new HashMap<>();
+                for (ProductSearchIndex.Hit hit : searchStock(storeId, query)) {
+                        rank.put(hit.productId(), rank.size());
+                }
+                return rank;
+        }
+
+        /**
+         * Index matches restricted to the products the store has a stock row for before they are
+         * ranked and cut off.
+         */
+        private List<ProductSearchIndex.Hit> searchStock(Long storeId, String query) {
+                Set<Long> stocked = new HashSet<>(stockLevelRepository.findProductIdsByStoreId(storeId));
+                if (stocked.isEmpty()) {
+                        return List.of();
+                }
+                return productSearchIndex.search(query, MAX_SEARCH_HITS, stocked::contains);
         }
 
         public List<com.storefront.dto.BundleViewDTO> getAllBundles() {
                 List<Bundle> bundles = bundleRepository.findAll();
+                Map<String, SkuDescriptor> resolved = skuCache.resolveAll(
+                                bundles.stream().map(Bundle::getSku).collect(Collectors.toList()));
                 return bundles.stream().map(bundle -> {
-                        List<BundleItem> items = bundleItemRepository.findByBundleId(bundle.getId());
-                        List<com.storefront.dto.BundleViewDTO.BundleItemDTO> itemDTOs = items.stream()
-                                        .map(item -> new com.storefront.dto.BundleViewDTO.BundleItemDTO(
+                        SkuDescriptor descriptor = resolved.get(bundle.getSku());
+                        List<com.storefront.dto.BundleViewDTO.BundleItemDTO> itemDTOs = new ArrayList<>();
+                        if (descriptor != null && descriptor.isBundle() && descriptor.getId().equals(bundle.getId())) {
+                                BundleComposition composition = descriptor.getComposition();
+                                for (int c = 0; c < composition.size(); c++) {
+                                        itemDTOs.add(new com.storefront.dto.BundleViewDTO.BundleItemDTO(
+                                                        composition.sku(c),
+                                                        composition.quantity(c)));
+                                }
+                        } else {
+                                // The SKU resolves to a product of the same SKU, or the bundle just went away
+                                for (BundleItem item : bundleItemRepository.findByBundleId(bundle.getId())) {
+                                        itemDTOs.add(new com.storefront.dto.BundleViewDTO.BundleItemDTO(
                                                         item.getProduct().getSku(),
-                                                        item.getQuantity()))
-                                        .collect(Collectors.toList());
+                                                        item.getQuantity()));
+                                }
+                        }
 
                         return new com.storefront.dto.BundleViewDTO(
                                         bundle.getId(),
@@ -214,14 +302,14 @@ public class InventoryService {
                 Product product = productRepository.findBySku(sku)
                                 .orElseThrow(() -> new IllegalArgumentException("Product not found: " + sku));
 
-                Long targetStoreId;
-                if (storeId == null) {
-                        Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                                        .orElseThrow(() -> new IllegalStateException(
-                                                        "Master Store not found initialized"));
-                        targetStoreId = masterStore.getId();
-                } else {
-                        targetStoreId = storeId;
+                Long targetStoreId = storeId == null ? storeTopology.masterStoreId() : storeId;
+
+                if (hotStockLedger.isHot(targetStoreId)) {
+                        int previous = hotStockLedger.available(targetStoreId, product.getId());
+                        hotStockLedger.adjustTo(targetStoreId, product.getId(), quantity);
+                        stockEventHub.publishLevel(targetStoreId, product.getId(), sku, quantity - previous, quantity);
+                        return new StockLevel(storeRepository.findById(targetStoreId).orElseThrow(), product,
+                                        quantity);
                 }
 
                 StockLevel stockLevel = stockLevelRepository
@@ -229,6 +317,8 @@ public class InventoryService {
                                 .orElse(new StockLevel(storeRepository.findById(targetStoreId).orElseThrow(), product,
                                                 0));
 
+                stockEventHub.publishLevel(targetStoreId, product.getId(), sku, quantity - stockLevel.getQuantity(),
+                                quantity);
                 stockLevel.setQuantity(quantity);
                 return stockLevelRepository.save(stockLevel);
         }
@@ -0,0 +1,184 @@
+package com.storefront.service;
+
+import com.storefront.dto.IsbnIngestDTO;
+import com.storefront.dto.IsbnIngestResultDTO;
+import com.storefront.model.Product;
+import com.storefront.model.StockDelta;
+import com.storefront.model.attributes.BookAttributes;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StockLevelRepository;
+import com.storefront.service.BookService.BookDetails;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingests books into the master store by ISBN, in batches.
+ *
+ * A batch runs in three steps, and only the last holds a database transaction: ISBNs that are
+ * neither in the catalog nor in the {@link IsbnMetadataCache} are looked up concurrently on a
+ * bounded pool, the details found are added to the cache, and then all new products and their
+ * master stock are written in one transaction, the stock as a single batched upsert. The stock
+ * added is announced to master store subscribers when that transaction commits.
+ */
+@Service
+public class IsbnIngestService {
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private final BookService bookService;
+    private final IsbnMetadataCache metadataCache;
+    private final ProductRepository productRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final StoreTopology storeTopology;
+    private final StockEventHub stockEventHub;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService lookupExecutor;
+
+    public IsbnIngestService(BookService bookService, IsbnMetadataCache metadataCache,
+            ProductRepository productRepository, StockLevelRepository stockLevelRepository,
+            StoreTopology storeTopology, StockEventHub stockEventHub, PlatformTransactionManager transactionManager,
+            @Value("${storefront.books.lookup-concurrency:8}") int lookupConcurrency) {
+        this.bookService = bookService;
+        this.metadataCache = metadataCache;
+        this.productRepository = productRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        this.storeTopology = storeTopology;
+        this.stockEventHub = stockEventHub;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        AtomicInteger threads = new AtomicInteger();
+        this.lookupExecutor = Executors.newFixedThreadPool(lookupConcurrency, task -> {
+            Thread thread = new Thread(task, "isbn-lookup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Single-ISBN ingest, as {@link #ingest} with one item; fails if the book cannot be found.
+     */
+    public Product ingestBook(String isbn, int quantity, BigDecimal manualPrice) {
+        IsbnIngestResultDTO result = ingest(List.of(new IsbnIngestDTO(isbn, quantity, manualPrice)));
+        if (result.getProducts().isEmpty()) {
+            throw new IllegalArgumentException("Book not found for ISBN: " + isbn);
+        }
+        return result.getProducts().get(0);
+    }
+
+    /**
+     * Adds the given quantities of each ISBN to master stock, creating the products that do not
+     * exist yet. Repeated ISBNs are merged; the last price given wins. An existing product's price
+     * is only changed when a price is given. ISBNs with no product and no book found are returned
+     * in {@code notFound} and change nothing.
+     */
+    public IsbnIngestResultDTO ingest(List<IsbnIngestDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one ISBN is required");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " ISBNs can be ingested at once");
+        }
+        Map<String, IsbnIngestDTO> merged = new LinkedHashMap<>();
+        for (IsbnIngestDTO item : items) {
+            if (item.getIsbn() == null || item.getIsbn().isBlank()) {
+                throw new IllegalArgumentException("ISBN is required");
+            }
+            if (item.getQuantity() < 0) {
+                throw new IllegalArgumentException("Quantity must not be negative: " + item.getIsbn());
+            }
+            String isbn = item.getIsbn().trim();
+            IsbnIngestDTO entry = merged.computeIfAbsent(isbn, key -> new IsbnIngestDTO(key, 0, null));
+            entry.setQuantity(entry.getQuantity() + item.getQuantity());
+            if (item.getPrice() != null) {
+                entry.setPrice(item.getPrice());
+            }
+        }
+
+        List<String> unknown = new ArrayList<>(merged.keySet());
+        productRepository.findBySkuIn(merged.keySet()).forEach(product -> unknown.remove(product.getSku()));
+        Map<String, BookDetails> details = lookUp(unknown);
+
+        return writeTransaction.execute(status -> write(merged, details));
+    }
+
+    private Map<String, BookDetails> lookUp(List<String> isbns) {
+        Map<String, BookDetails> details = new HashMap<>(metadataCache.findAll(isbns));
+        List<CompletableFuture<Optional<BookDetails>>> lookups = new ArrayList<>();
+        for (String isbn : isbns) {
+            if (!details.containsKey(isbn)) {
+                lookups.add(CompletableFuture.supplyAsync(() -> bookService.fetchBookDetails(isbn), lookupExecutor));
+            }
+        }
+        List<BookDetails> fetched = new ArrayList<>();
+        for (CompletableFuture<Optional<BookDetails>> lookup : lookups) {
+            lookup.join().ifPresent(fetched::add);
+        }
+        metadataCache.putAll(fetched);
+        fetched.forEach(book -> details.put(book.isbn(), book));
+        return details;
+    }
+
+    private IsbnIngestResultDTO write(Map<String, IsbnIngestDTO> items, Map<String, BookDetails> details) {
+        Long masterStoreId = storeTopology.masterStoreId();
+        // Read again inside the transaction: a concurrent ingest may have created some meanwhile
+        Map<String, Product> existing = new HashMap<>();
+        productRepository.findBySkuIn(items.keySet()).forEach(product -> existing.put(product.getSku(), product));
+
+        List<Product> products = new ArrayList<>();
+        List<String> notFound = new ArrayList<>();
+        for (IsbnIngestDTO item : items.values()) {
+            Product product = existing.get(item.getIsbn());
+            if (product != null) {
+                if (item.getPrice() != null) {
+                    product.setBasePrice(item.getPrice());
+                }
+            } else if (details.containsKey(item.getIsbn())) {
+                product = newBook(details.get(item.getIsbn()), item.getPrice());
+            } else {
+                notFound.add(item.getIsbn());
+                continue;
+            }
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+
+        List<StockDelta> deltas = new ArrayList<>();
+        for (Product product : products) {
+            int quantity = items.get(product.getSku()).getQuantity();
+            if (quantity > 0) {
+                deltas.add(new StockDelta(masterStoreId, product.getId(), quantity));
+                stockEventHub.publish(masterStoreId, product.getId(), product.getSku(), quantity);
+            }
+        }
+        stockLevelRepository.addQuantities(deltas);
+        return new IsbnIngestResultDTO(products, notFound);
+    }
+
+    private Product newBook(BookDetails book, BigDecimal manualPrice) {
+        BigDecimal price = manualPrice != null ? manualPrice
+                : book.listPrice() != null ? book.listPrice() : BigDecimal.ZERO;
+        BookAttributes attributes = new BookAttributes();
+        attributes.setAuthor(book.authors());
+        attributes.setPublisher(book.publisher());
+        return new Product(book.isbn(), "BOOK", book.title(), price, attributes);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lookupExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,78 @@
+package com.storefront.service;
+
+import com.storefront.service.BookService.BookDetails;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Book details already fetched by {@link BookService}, kept in isbn_metadata. Entries are never
+ * refreshed; a book found once is taken from here on every later ingest of its ISBN. Lookups that
+ * found nothing are not recorded, so they are retried.
+ */
+@Service
+public class IsbnMetadataCache {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public IsbnMetadataCache(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public Map<String, BookDetails> findAll(Collection<String> isbns) {
+        Map<String, BookDetails> found = new HashMap<>();
+        if (isbns.isEmpty()) {
+            return found;
+        }
+        namedJdbcTemplate.query("SELECT isbn, title, authors, publisher, description, page_count, list_price "
+                + "FROM isbn_metadata WHERE isbn IN (:isbns)", new MapSqlParameterSource("isbns", isbns),
+                rs -> {
+                    BookDetails details = new BookDetails(rs.getString(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5), rs.getInt(6), rs.getBigDecimal(7));
+                    found.put(details.isbn(), details);
+                });
+        return found;
+    }
+
+    /**
+     * Records freshly fetched details. ISBNs cached meanwhile by a concurrent ingest keep their
+     * existing row.
+     */
+    public void putAll(Collection<BookDetails> fetched) {
+        List<BookDetails> rows = new ArrayList<>(fetched);
+        Map<String, BookDetails> cached = findAll(rows.stream().map(BookDetails::isbn).toList());
+        rows.removeIf(details -> cached.containsKey(details.isbn()));
+        if (rows.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String sql = "INSERT INTO isbn_metadata (isbn, title, authors, publisher, description, page_count, "
+                + "list_price, fetched_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, details) -> {
+                ps.setString(1, details.isbn());
+                ps.setString(2, details.title());
+                ps.setString(3, details.authors());
+                ps.setString(4, details.publisher());
+                ps.setString(5, details.description());
+                ps.setInt(6, details.pageCount());
+                ps.setBigDecimal(7, details.listPrice());
+                ps.setTimestamp(8, now);
+            });
+        } catch (DuplicateKeyException e) {
+            // Lost a race with another ingest of the same ISBNs; the rows it wrote are equivalent
+        }
+    }
+}
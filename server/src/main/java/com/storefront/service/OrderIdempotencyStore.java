@@ -0,0 +1,180 @@
+package com.storefront.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounded record of recent Idempotency-Key values sent with order submissions, mapping each key
+ * to the id of the order it created. A retried submission finds its key here and gets the
+ * existing order back without running checkout again.
+ *
+ * Keys are scoped per user and remembered with a SHA-256 digest of the request body; reusing a
+ * key for a different basket is rejected. A duplicate that arrives while the first submission is
+ * still running waits for it. If the first submission fails its key is released, so the retry
+ * runs checkout itself. Entries expire after the configured TTL and the oldest finished ones are
+ * evicted beyond the size bound; a submission still running is never evicted, so its duplicates
+ * keep waiting for it.
+ */
+@Service
+public class OrderIdempotencyStore {
+
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long waitMillis;
+    private final Map<String, Entry> entries;
+    private final Counter replays;
+
+    public OrderIdempotencyStore(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${storefront.orders.idempotency.max-entries:10000}") int maxEntries,
+            @Value("${storefront.orders.idempotency.ttl-ms:86400000}") long ttlMillis,
+            @Value("${storefront.orders.idempotency.wait-ms:30000}") long waitMillis) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.waitMillis = waitMillis;
+        this.entries = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                Iterator<Entry> oldestFirst = values().iterator();
+                while (size() > OrderIdempotencyStore.this.maxEntries && oldestFirst.hasNext()) {
+                    if (oldestFirst.next().orderId.isDone()) {
+                        oldestFirst.remove();
+                    }
+                }
+                return false;
+            }
+        };
+        this.replays = Counter.builder("storefront.orders.idempotent.replays")
+                .description("Order submissions answered from an earlier request with the same Idempotency-Key")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Outcome of {@link #claim}: either the order an earlier request with the key created, or
+     * ownership of the key, to be reported through {@link #complete} or {@link #release}.
+     */
+    public static final class Claim {
+        private final String scopedKey;
+        private final Entry entry;
+        private final Long previousOrderId;
+
+        private Claim(String scopedKey, Entry entry, Long previousOrderId) {
+            this.scopedKey = scopedKey;
+            this.entry = entry;
+            this.previousOrderId = previousOrderId;
+        }
+
+        public Optional<Long> previousOrderId() {
+            return Optional.ofNullable(previousOrderId);
+        }
+    }
+
+    /**
+     * Claims {@code key} for {@code userId}, waiting for a running submission with the same key.
+     */
+    public Claim claim(Long userId, String key, Object request) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = userId + ":" + key;
+        String fingerprint = fingerprint(request);
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Entry entry;
+            synchronized (entries) {
+                long now = System.currentTimeMillis();
+                entry = entries.get(scopedKey);
+                if (entry == null || entry.expiresAt <= now) {
+                    Entry claimed = new Entry(fingerprint, now + ttlMillis);
+                    entries.put(scopedKey, claimed);
+                    return new Claim(scopedKey, claimed, null);
+                }
+            }
+            if (!entry.fingerprint.equals(fingerprint)) {
+                throw new IllegalArgumentException("Idempotency-Key was already used for a different order");
+            }
+            try {
+                Long orderId = entry.orderId.get(Math.max(0, deadline - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+                replays.increment();
+                return new Claim(scopedKey, entry, orderId);
+            } catch (ExecutionException e) {
+                // The first submission failed and released the key; try to claim it again
+            } catch (TimeoutException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "An order with this Idempotency-Key is still being processed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a duplicate order", e);
+            }
+        }
+    }
+
+    /**
+     * Records the order created under a claimed key and wakes any duplicates waiting for it.
+     */
+    public void complete(Claim claim, Long orderId) {
+        claim.entry.orderId.complete(orderId);
+    }
+
+    /**
+     * Forgets a claimed key after its submission failed, so a retry runs checkout again. A newer
+     * claim of the same key, made after this one expired, is left alone.
+     */
+    public void release(Claim claim, RuntimeException failure) {
+        synchronized (entries) {
+            entries.remove(claim.scopedKey, claim.entry);
+        }
+        claim.entry.orderId.completeExceptionally(failure);
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unreadable order request", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Long> orderId = new CompletableFuture<>();
+
+        Entry(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.storefront.service;
 import com.storefront.dto.*;
 import com.storefront.model.*;
 import com.storefront.repository.*;
+import com.storefront.security.AuthenticatedUser;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.jpa.domain.Specification; // For filtering
@@ -10,94 +11,140 @@ import org.springframework.data.jpa.domain.Specification; // For filtering
 import jakarta.persistence.criteria.Predicate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
 @Service
 @Transactional
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final CustomerOrderRepository orderRepository;
     private final OrderLineRepository orderLineRepository;
     private final StoreRepository storeRepository;
     private final ProductRepository productRepository;
     private final BundleRepository bundleRepository;
-    private final BundleItemRepository bundleItemRepository;
     private final StockLevelRepository stockLevelRepository;
     private final CustomerRepository customerRepository; // New dependency
+    private final HotStockLedger hotStockLedger;
+    private final SkuCache skuCache;
+    private final AppUserRepository userRepository;
+    private final StoreSalesLedger storeSalesLedger;
+    private final StockEventHub stockEventHub;
 
     public OrderService(CustomerOrderRepository orderRepository, OrderLineRepository orderLineRepository,
             StoreRepository storeRepository, ProductRepository productRepository,
-            BundleRepository bundleRepository, BundleItemRepository bundleItemRepository,
-            StockLevelRepository stockLevelRepository, CustomerRepository customerRepository) {
+            BundleRepository bundleRepository,
+            StockLevelRepository stockLevelRepository, CustomerRepository customerRepository,
+            HotStockLedger hotStockLedger, SkuCache skuCache, AppUserRepository userRepository,
+            StoreSalesLedger storeSalesLedger, StockEventHub stockEventHub) {
         this.orderRepository = orderRepository;
         this.orderLineRepository = orderLineRepository;
         this.storeRepository = storeRepository;
         this.productRepository = productRepository;
         this.bundleRepository = bundleRepository;
-        this.bundleItemRepository = bundleItemRepository;
         this.stockLevelRepository = stockLevelRepository;
         this.customerRepository = customerRepository;
+        this.hotStockLedger = hotStockLedger;
+        this.skuCache = skuCache;
+        this.userRepository = userRepository;
+        this.storeSalesLedger = storeSalesLedger;
+        this.stockEventHub = stockEventHub;
     }
 
-    public CustomerOrder createOrder(OrderRequestDTO request, AppUser currentUser) {
+    public CustomerOrder createOrder(OrderRequestDTO request, AuthenticatedUser currentUser) {
         Store store = storeRepository.findById(request.getStoreId())
                 .orElseThrow(() -> new IllegalArgumentException("Store not found"));
 
         CustomerOrder order = new CustomerOrder();
         order.setStore(store);
-        order.setProcessedBy(currentUser);
         order.setStatus(CustomerOrder.OrderStatus.COMPLETED); // Instant completion for now
         order.setTotalAmount(BigDecimal.ZERO);
 
-        // We need to save order first? No, cascade usually. But simple way: save order
-        // first.
-        order = orderRepository.save(order);
+        // Resolve the whole basket up front; the SKU cache answers repeat SKUs without a query
+        Set<String> skus = new HashSet<>();
+        for (OrderItemRequestDTO item : request.getItems()) {
+            skus.add(item.getSku());
+        }
+        Map<String, SkuDescriptor> resolved = skuCache.resolveAll(skus);
+
+        // Per-product demand for the whole basket, bundles exploded and summed
+        Map<Long, Integer> demand = new TreeMap<>();
+        Map<Long, String> demandedSkus = new HashMap<>();
+        for (OrderItemRequestDTO item : request.getItems()) {
+            SkuDescriptor descriptor = resolved.get(item.getSku());
+            if (descriptor == null) {
+                throw new IllegalArgumentException("SKU not found: " + item.getSku());
+            }
+            if (!descriptor.isBundle()) {
+                demand.merge(descriptor.getId(), item.getQuantity(), Integer::sum);
+                demandedSkus.put(descriptor.getId(), descriptor.getSku());
+            } else {
+                BundleComposition composition = descriptor.getComposition();
+                boolean[] excluded = composition.exclusions(item.getExcludedProductSkus());
+                for (int c = 0; c < composition.size(); c++) {
+                    if (!excluded[c]) {
+                        demand.merge(composition.productId(c), composition.quantity(c) * item.getQuantity(),
+                                Integer::sum);
+                        demandedSkus.put(composition.productId(c), composition.sku(c));
+                    }
+                }
+            }
+        }
+
+        // Stock is taken before anything is persisted: the atomic decrements clear the
+        // persistence context, and a failed line aborts the order without further writes.
+        decrementStock(store, demand, demandedSkus);
+        order.setProcessedBy(userRepository.getReferenceById(currentUser.getId()));
 
         BigDecimal totalAmount = BigDecimal.ZERO;
         List<OrderLine> lines = new ArrayList<>();
+        Map<String, OrderLine> bundleLines = new HashMap<>();
 
         for (OrderItemRequestDTO item : request.getItems()) {
-            Optional<Product> productOpt = productRepository.findBySku(item.getSku());
+            SkuDescriptor descriptor = resolved.get(item.getSku());
 
-            if (productOpt.isPresent()) {
+            if (!descriptor.isBundle()) {
                 // Single Product
-                Product product = productOpt.get();
-                decrementStock(store, product, item.getQuantity());
-
-                OrderLine line = new OrderLine(product, null, product.getBasePrice(), false, item.getQuantity());
+                Product product = productRepository.getReferenceById(descriptor.getId());
+                OrderLine line = new OrderLine(product, null, descriptor.getPrice(), false, item.getQuantity());
                 line.setOrder(order);
                 lines.add(line);
 
-                totalAmount = totalAmount.add(product.getBasePrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                totalAmount = totalAmount.add(descriptor.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
             } else {
                 // Bundle
-                Bundle bundle = bundleRepository.findBySku(item.getSku())
-                        .orElseThrow(() -> new IllegalArgumentException("SKU not found: " + item.getSku()));
-
-                List<BundleItem> bundleItems = bundleItemRepository.findByBundleId(bundle.getId());
-
-                // For each bundle instance (quantity)
-                for (int i = 0; i < item.getQuantity(); i++) {
-                    for (BundleItem bi : bundleItems) {
-                        boolean isExcluded = item.getExcludedProductSkus() != null &&
-                                item.getExcludedProductSkus().contains(bi.getProduct().getSku());
-
-                        if (!isExcluded) {
-                            decrementStock(store, bi.getProduct(), bi.getQuantity());
-                        }
-
-                        // We create a line for every item in the bundle
-                        // Unit price is 0 for bundle components as plan decided, total is added from
-                        // Bundle Price
-                        OrderLine line = new OrderLine(bi.getProduct(), bundle, BigDecimal.ZERO, isExcluded,
-                                bi.getQuantity());
+                Bundle bundle = bundleRepository.getReferenceById(descriptor.getId());
+                BundleComposition composition = descriptor.getComposition();
+                boolean[] excluded = composition.exclusions(item.getExcludedProductSkus());
+
+                // One line per (bundle, component, exclusion) carrying the number of bundle units;
+                // repeated basket items of the same bundle add to the existing lines.
+                // Unit price is 0 for bundle components as plan decided, total is added from
+                // Bundle Price
+                for (int c = 0; c < composition.size() && item.getQuantity() > 0; c++) {
+                    String key = descriptor.getId() + ":" + composition.productId(c) + ":" + excluded[c];
+                    OrderLine line = bundleLines.get(key);
+                    if (line == null) {
+                        line = new OrderLine(productRepository.getReferenceById(composition.productId(c)),
+                                bundle, BigDecimal.ZERO, excluded[c], composition.quantity(c));
+                        line.setBundleUnits(0);
                         line.setOrder(order);
+                        bundleLines.put(key, line);
                         lines.add(line);
                     }
-                    totalAmount = totalAmount.add(bundle.getPrice());
+                    line.setBundleUnits(line.getBundleUnits() + item.getQuantity());
                 }
+                totalAmount = totalAmount.add(descriptor.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
             }
         }
 
@@ -110,7 +157,9 @@ public class OrderService {
         }
 
         order.setTotalAmount(totalAmount);
+        order = orderRepository.save(order);
         orderLineRepository.saveAll(lines);
+        storeSalesLedger.record(store.getId(), totalAmount, lines);
         // Handle Customer Linking
         if (request.getCustomerPhone() != null && !request.getCustomerPhone().isEmpty()) {
             Optional<Customer> existingCustomer = customerRepository.findByPhone(request.getCustomerPhone());
@@ -129,17 +178,30 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
-    private void decrementStock(Store store, Product product, int quantity) {
-        StockLevel stock = stockLevelRepository.findByStoreIdAndProductId(store.getId(), product.getId())
-                .orElseThrow(() -> new IllegalArgumentException("Product not available in store: " + product.getSku()));
-
-        if (stock.getQuantity() < quantity) {
-            throw new IllegalArgumentException(
-                    "Insufficient stock for " + product.getSku() + ". Available: " + stock.getQuantity());
+    /**
+     * Decrements the whole basket with one conditional UPDATE per product. Rows are visited in
+     * product id order, so overlapping checkouts lock rows in the same order and cannot deadlock.
+     * Any shortfall throws, rolling back the decrements already applied in this transaction.
+     * Stores in hot inventory mode reserve against the in-memory ledger instead.
+     */
+    private void decrementStock(Store store, Map<Long, Integer> demand, Map<Long, String> skus) {
+        if (hotStockLedger.isHot(store.getId())) {
+            hotStockLedger.reserve(store.getId(), demand, skus::get);
+        } else {
+            for (Map.Entry<Long, Integer> entry : demand.entrySet()) {
+                int quantity = entry.getValue();
+                if (stockLevelRepository.decrementIfAvailable(store.getId(), entry.getKey(), quantity) == 0) {
+                    String sku = skus.get(entry.getKey());
+                    Integer available = stockLevelRepository.findQuantity(store.getId(), entry.getKey())
+                            .orElseThrow(() -> new IllegalArgumentException(
+                                    "Product not available in store: " + sku));
+                    throw new IllegalArgumentException(
+                            "Insufficient stock for " + sku + ". Available: " + available);
+                }
+            }
         }
-
-        stock.setQuantity(stock.getQuantity() - quantity);
-        stockLevelRepository.save(stock);
+        demand.forEach((productId, quantity) -> stockEventHub.publish(store.getId(), productId, skus.get(productId),
+                -quantity));
     }
 
     public List<CustomerOrder> searchOrders(String customerName, String customerPhone, List<Long> storeIds) {
@@ -168,30 +230,104 @@ public class OrderService {
                 .by(org.springframework.data.domain.Sort.Direction.DESC, "createdAt"));
     }
 
-    public OrderReconciliationSummaryDTO getReconciliationReport(Long storeId) {
-        List<CustomerOrder> orders;
-        if (storeId != null) {
-            orders = orderRepository.findByStoreId(storeId);
-        } else {
-            orders = orderRepository.findAll();
+    /**
+     * One page of the order history as slim headers, newest first. {@code cursor} is the
+     * {@code nextCursor} of the previous page, null for the first; it encodes the (createdAt, id)
+     * keyset of the last order returned. Names and phones match as prefixes.
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDTO searchOrderPage(String customerName, String customerPhone, List<Long> storeIds,
+            String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
         }
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            int separator = cursor.lastIndexOf('_');
+            try {
+                beforeCreatedAt = LocalDateTime.parse(cursor.substring(0, separator));
+                beforeId = Long.valueOf(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+        }
+        String namePrefix = customerName != null && !customerName.isBlank()
+                ? Customer.normalizeName(customerName) : null;
+        String phonePrefix = customerPhone != null && !customerPhone.isBlank() ? customerPhone.trim() : null;
+
+        List<OrderSummaryDTO> items = orderRepository.findSummaryPage(storeIds, namePrefix, phonePrefix,
+                beforeCreatedAt, beforeId, limit);
+        String nextCursor = null;
+        if (items.size() == limit) {
+            OrderSummaryDTO last = items.get(items.size() - 1);
+            nextCursor = last.getCreatedAt() + "_" + last.getId();
+        }
+        return new OrderPageDTO(items, nextCursor);
+    }
 
-        long totalCount = orders.size();
-        long reconciledCount = orders.stream().filter(CustomerOrder::isReconciled).count();
-        long unreconciledCount = totalCount - reconciledCount;
-
-        BigDecimal totalAmount = orders.stream()
-                .map(CustomerOrder::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    @Transactional(readOnly = true)
+    public CustomerOrder getOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
 
-        BigDecimal reconciledAmount = orders.stream()
-                .filter(CustomerOrder::isReconciled)
-                .map(CustomerOrder::getTotalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public Long getOrderStoreId(Long orderId) {
+        return orderRepository.findStoreIdById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found"));
+    }
 
-        BigDecimal unreconciledAmount = totalAmount.subtract(reconciledAmount);
+    /**
+     * Lines of one order, fetched with their products in a single query. Bundle lines are
+     * expanded to one per unit unless {@code compact} is set, as on the order search.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderLine> getOrderLines(Long orderId, boolean compact) {
+        List<OrderLine> lines = orderLineRepository.findWithProductsByOrderId(orderId);
+        if (compact) {
+            return lines;
+        }
+        List<OrderLine> expanded = new ArrayList<>();
+        for (OrderLine line : lines) {
+            expanded.addAll(line.expand());
+        }
+        return expanded;
+    }
 
-        return new OrderReconciliationSummaryDTO(totalCount, reconciledCount, unreconciledCount,
-                totalAmount, reconciledAmount, unreconciledAmount);
+    /**
+     * Order counts and amounts split by reconciled flag, for one store or all stores when
+     * {@code storeId} is null. Without date bounds this reads the running totals; with bounds it
+     * runs one grouped query over orders created between {@code from} and {@code to}, inclusive.
+     */
+    public OrderReconciliationSummaryDTO getReconciliationReport(Long storeId, LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            return storeSalesLedger.summary(storeId);
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        LocalDateTime start = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+        List<Object[]> rows = storeId != null
+                ? orderRepository.summarizeByStore(storeId, start, end)
+                : orderRepository.summarize(start, end);
+
+        long reconciledCount = 0;
+        long unreconciledCount = 0;
+        BigDecimal reconciledAmount = BigDecimal.ZERO;
+        BigDecimal unreconciledAmount = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            long count = ((Number) row[1]).longValue();
+            BigDecimal amount = (BigDecimal) row[2];
+            if (Boolean.TRUE.equals(row[0])) {
+                reconciledCount = count;
+                reconciledAmount = amount;
+            } else {
+                unreconciledCount = count;
+                unreconciledAmount = amount;
+            }
+        }
+        return new OrderReconciliationSummaryDTO(reconciledCount + unreconciledCount, reconciledCount,
+                unreconciledCount, reconciledAmount.add(unreconciledAmount), reconciledAmount, unreconciledAmount);
     }
 }
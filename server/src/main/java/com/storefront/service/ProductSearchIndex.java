@@ -0,0 +1,593 @@
+package com.storefront.service;
+
+import com.storefront.event.CatalogChangedEvent;
+import com.storefront.model.Product;
+import com.storefront.model.attributes.ApparelAttributes;
+import com.storefront.model.attributes.BookAttributes;
+import com.storefront.model.attributes.PencilAttributes;
+import com.storefront.model.attributes.ProductAttributes;
+import com.storefront.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+/**
+ * In-process inverted index over active products, used by the store inventory search instead
+ * of a LIKE scan over names and attribute JSON.
+ *
+ * Terms come from the SKU, the name and the typed {@link ProductAttributes} fields, each
+ * weighted by the field it came from. A query matches a product when every query term equals
+ * or is a prefix of one of its terms; matches are ranked by summed field weight, with exact
+ * terms counting double.
+ *
+ * The index is built once the application is ready and then follows {@link CatalogChangedEvent}:
+ * writes are applied as soon as they are flushed, and products touched by a transaction that
+ * rolls back are reloaded from the database.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    static final int SKU_WEIGHT = 8;
+    static final int NAME_WEIGHT = 6;
+    static final int PRIMARY_ATTRIBUTE_WEIGHT = 4;
+    static final int ATTRIBUTE_WEIGHT = 2;
+    static final int DESCRIPTION_WEIGHT = 1;
+
+    // Below this many candidates per posting, later query terms are probed by binary search
+    private static final int PROBE_RATIO = 16;
+
+    // Single characters expand to most of the dictionary; they only match whole terms
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    private final ProductRepository productRepository;
+
+    private final ConcurrentSkipListMap<String, Posting> terms = new ConcurrentSkipListMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    private final Timer queryTimer;
+
+    public ProductSearchIndex(ProductRepository productRepository, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.queryTimer = Timer.builder("storefront.search.query")
+                .description("Time spent answering product search queries").register(meterRegistry);
+        Gauge.builder("storefront.search.index.documents", documents, Map::size).register(meterRegistry);
+        Gauge.builder("storefront.search.index.terms", terms, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * One ranked match.
+     */
+    public record Hit(long productId, String sku, int score) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long start = System.nanoTime();
+        rebuild(productRepository.findByIsActiveTrue());
+        logger.info("Product search index built with {} products and {} terms in {} ms", documents.size(),
+                terms.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replaces the whole index with {@code products}. Postings are accumulated per term and sorted
+     * once, rather than inserted product by product.
+     */
+    public void rebuild(Collection<Product> products) {
+        Map<String, PostingBuilder> builders = new HashMap<>();
+        Map<Long, Document> built = new HashMap<>();
+        for (Product product : products) {
+            if (!product.isActive()) {
+                continue;
+            }
+            Document document = analyze(product.getSku(), product.getName(), product.getAttributes());
+            built.put(product.getId(), document);
+            for (int i = 0; i < document.terms.length; i++) {
+                builders.computeIfAbsent(document.terms[i], t -> new PostingBuilder())
+                        .add(product.getId(), document.weights[i]);
+            }
+        }
+        synchronized (writeLock) {
+            terms.clear();
+            documents.clear();
+            builders.forEach((term, builder) -> terms.put(term, builder.build()));
+            documents.putAll(built);
+        }
+    }
+
+    public void put(Product product) {
+        if (!product.isActive()) {
+            remove(product.getId());
+            return;
+        }
+        put(product.getId(), product.getSku(), product.getName(), product.getAttributes());
+    }
+
+    public void put(long productId, String sku, String name, ProductAttributes attributes) {
+        Document document = analyze(sku, name, attributes);
+        synchronized (writeLock) {
+            Document previous = documents.put(productId, document);
+            if (previous != null) {
+                Set<String> kept = new HashSet<>(Arrays.asList(document.terms));
+                for (String term : previous.terms) {
+                    if (!kept.contains(term)) {
+                        removePosting(term, productId);
+                    }
+                }
+            }
+            for (int i = 0; i < document.terms.length; i++) {
+                String term = document.terms[i];
+                byte weight = document.weights[i];
+                terms.compute(term, (t, posting) -> posting == null
+                        ? new Posting(new long[] { productId }, new byte[] { weight })
+                        : posting.with(productId, weight));
+            }
+        }
+    }
+
+    public void remove(Long productId) {
+        synchronized (writeLock) {
+            Document previous = documents.remove(productId);
+            if (previous != null) {
+                for (String term : previous.terms) {
+                    removePosting(term, productId);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Products matching every term of {@code query}, best first, at most {@code limit} of them.
+     */
+    public List<Hit> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    /**
+     * As {@link #search(String, int)}, among the products {@code candidates} accepts (all when
+     * null). The limit applies after that filter, so narrowing to a store's stock never loses
+     * matches to better ranked products the store does not carry.
+     */
+    public List<Hit> search(String query, int limit, LongPredicate candidates) {
+        return queryTimer.record(() -> doSearch(query, limit, candidates));
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        Product product = event.getProduct();
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        if (event.isRemoved()) {
+            remove(product.getId());
+        } else {
+            put(product);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            touchedInTransaction().add(product.getId());
+        }
+    }
+
+    private List<Hit> doSearch(String query, int limit, LongPredicate candidates) {
+        Set<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        // Intersect the per-term matches smallest first, so later steps walk as few ids as possible
+        List<Expansion> expansions = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Expansion expansion = new Expansion(token, new ArrayList<>(expansionEntries(token)));
+            if (expansion.postings == 0) {
+                return List.of();
+            }
+            expansions.add(expansion);
+        }
+        expansions.sort(Comparator.comparingLong(e -> e.postings));
+        Matches result = matches(expansions.get(0));
+        for (int i = 1; i < expansions.size() && result.size > 0; i++) {
+            Expansion next = expansions.get(i);
+            // A handful of candidates against a very common term: look them up instead of
+            // materializing the term's postings
+            result = (long) result.size * PROBE_RATIO < next.postings
+                    ? result.probe(next)
+                    : result.intersect(matches(next));
+        }
+        if (candidates != null) {
+            result = result.filter(candidates);
+        }
+        return top(result, limit);
+    }
+
+    /**
+     * Products whose terms equal or extend {@code token}, with the score of their best such term.
+     */
+    private static Matches matches(Expansion expansion) {
+        String token = expansion.token;
+        List<Map.Entry<String, Posting>> entries = expansion.entries;
+        if (entries.size() == 1) {
+            Posting posting = entries.get(0).getValue();
+            int factor = entries.get(0).getKey().equals(token) ? 2 : 1;
+            int[] scores = new int[posting.ids.length];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = posting.weights[i] * factor;
+            }
+            return new Matches(posting.ids, scores, scores.length);
+        }
+
+        int total = (int) expansion.postings;
+        long[] packed = new long[total];
+        int n = 0;
+        for (Map.Entry<String, Posting> entry : entries) {
+            int factor = entry.getKey().equals(token) ? 2 : 1;
+            Posting posting = entry.getValue();
+            for (int i = 0; i < posting.ids.length; i++) {
+                packed[n++] = (posting.ids[i] << 8) | (posting.weights[i] * factor);
+            }
+        }
+        Arrays.sort(packed);
+        long[] ids = new long[total];
+        int[] scores = new int[total];
+        int size = 0;
+        for (long entry : packed) {
+            long id = entry >>> 8;
+            int score = (int) (entry & 0xFF);
+            // Sorted by id then score, so the last entry of an id carries its best score
+            if (size > 0 && ids[size - 1] == id) {
+                scores[size - 1] = score;
+            } else {
+                ids[size] = id;
+                scores[size++] = score;
+            }
+        }
+        return new Matches(ids, scores, size);
+    }
+
+    /**
+     * The {@code limit} best matches, highest score first and then by product id. Scores are
+     * small integers, so a histogram finds the cut-off without sorting every match.
+     */
+    private List<Hit> top(Matches matches, int limit) {
+        int maxScore = 0;
+        for (int i = 0; i < matches.size; i++) {
+            maxScore = Math.max(maxScore, matches.scores[i]);
+        }
+        int[] histogram = new int[maxScore + 1];
+        for (int i = 0; i < matches.size; i++) {
+            histogram[matches.scores[i]]++;
+        }
+        int threshold = maxScore;
+        int above = histogram[maxScore];
+        while (threshold > 0 && above < limit) {
+            above += histogram[--threshold];
+        }
+
+        List<Hit> hits = new ArrayList<>(Math.min(above, limit));
+        int atThreshold = limit - (above - histogram[threshold]);
+        for (int i = 0; i < matches.size; i++) {
+            int score = matches.scores[i];
+            if (score > threshold || (score == threshold && atThreshold-- > 0)) {
+                Document document = documents.get(matches.ids[i]);
+                if (document != null) {
+                    hits.add(new Hit(matches.ids[i], document.sku, score));
+                }
+            }
+        }
+        hits.sort(Comparator.comparingInt(Hit::score).reversed().thenComparingLong(Hit::productId));
+        return hits;
+    }
+
+    private Collection<Map.Entry<String, Posting>> expansionEntries(String token) {
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            Posting exact = terms.get(token);
+            return exact == null ? List.of() : List.of(Map.entry(token, exact));
+        }
+        return terms.subMap(token, true, token + Character.MAX_VALUE, true).entrySet();
+    }
+
+    private void removePosting(String term, long productId) {
+        terms.computeIfPresent(term, (t, posting) -> posting.without(productId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Long> touchedInTransaction() {
+        Set<Long> touched = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (touched == null) {
+            Set<Long> ids = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(this, ids);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductSearchIndex.this);
+                    if (status != STATUS_COMMITTED) {
+                        reload(ids);
+                    }
+                }
+            });
+            touched = ids;
+        }
+        return touched;
+    }
+
+    /**
+     * Puts back the committed state of products a rolled-back transaction had indexed.
+     */
+    private void reload(Set<Long> productIds) {
+        Set<Long> missing = new HashSet<>(productIds);
+        for (Product product : productRepository.findAllById(productIds)) {
+            missing.remove(product.getId());
+            put(product);
+        }
+        missing.forEach(this::remove);
+    }
+
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static Document analyze(String sku, String name, ProductAttributes attributes) {
+        Map<String, Integer> weights = new HashMap<>();
+        addField(weights, sku, SKU_WEIGHT);
+        addField(weights, name, NAME_WEIGHT);
+        if (attributes instanceof BookAttributes book) {
+            addField(weights, book.getAuthor(), PRIMARY_ATTRIBUTE_WEIGHT);
+            addField(weights, book.getPublisher(), ATTRIBUTE_WEIGHT);
+            addField(weights, book.getIsbn(), ATTRIBUTE_WEIGHT);
+            addField(weights, book.getGenre(), ATTRIBUTE_WEIGHT);
+            addField(weights, book.getDescription(), DESCRIPTION_WEIGHT);
+        } else if (attributes instanceof PencilAttributes pencil) {
+            addField(weights, pencil.getBrand(), PRIMARY_ATTRIBUTE_WEIGHT);
+            addField(weights, pencil.getHardness(), ATTRIBUTE_WEIGHT);
+            addField(weights, pencil.getMaterial(), ATTRIBUTE_WEIGHT);
+        } else if (attributes instanceof ApparelAttributes apparel) {
+            addField(weights, apparel.getBrand(), PRIMARY_ATTRIBUTE_WEIGHT);
+            addField(weights, apparel.getSize(), ATTRIBUTE_WEIGHT);
+            addField(weights, apparel.getColor(), ATTRIBUTE_WEIGHT);
+            addField(weights, apparel.getMaterial(), ATTRIBUTE_WEIGHT);
+        }
+
+        String[] documentTerms = new String[weights.size()];
+        byte[] documentWeights = new byte[weights.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            documentTerms[i] = entry.getKey();
+            documentWeights[i] = entry.getValue().byteValue();
+            i++;
+        }
+        return new Document(sku, documentTerms, documentWeights);
+    }
+
+    private static void addField(Map<String, Integer> weights, String value, int weight) {
+        for (String token : tokenize(value)) {
+            weights.merge(token, weight, Math::max);
+        }
+    }
+
+    /**
+     * Terms of one product with the weight of the best field each came from.
+     */
+    private static final class Document {
+        final String sku;
+        final String[] terms;
+        final byte[] weights;
+
+        Document(String sku, String[] terms, byte[] weights) {
+            this.sku = sku;
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    /**
+     * Immutable, id-sorted product list for one term. Writers replace postings rather than
+     * mutating them, so searches never need a lock.
+     */
+    private static final class Posting {
+        final long[] ids;
+        final byte[] weights;
+
+        Posting(long[] ids, byte[] weights) {
+            this.ids = ids;
+            this.weights = weights;
+        }
+
+        Posting with(long id, byte weight) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                if (weights[index] == weight) {
+                    return this;
+                }
+                byte[] updated = weights.clone();
+                updated[index] = weight;
+                return new Posting(ids, updated);
+            }
+            int insert = -index - 1;
+            long[] newIds = new long[ids.length + 1];
+            byte[] newWeights = new byte[ids.length + 1];
+            System.arraycopy(ids, 0, newIds, 0, insert);
+            System.arraycopy(weights, 0, newWeights, 0, insert);
+            newIds[insert] = id;
+            newWeights[insert] = weight;
+            System.arraycopy(ids, insert, newIds, insert + 1, ids.length - insert);
+            System.arraycopy(weights, insert, newWeights, insert + 1, ids.length - insert);
+            return new Posting(newIds, newWeights);
+        }
+
+        /**
+         * @return the posting without {@code id}, or null when it was the last one
+         */
+        Posting without(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                return this;
+            }
+            if (ids.length == 1) {
+                return null;
+            }
+            long[] newIds = new long[ids.length - 1];
+            byte[] newWeights = new byte[ids.length - 1];
+            System.arraycopy(ids, 0, newIds, 0, index);
+            System.arraycopy(weights, 0, newWeights, 0, index);
+            System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+            System.arraycopy(weights, index + 1, newWeights, index, ids.length - index - 1);
+            return new Posting(newIds, newWeights);
+        }
+    }
+
+    /**
+     * The dictionary terms one query term matches, with their combined posting count.
+     */
+    private static final class Expansion {
+        final String token;
+        final List<Map.Entry<String, Posting>> entries;
+        final long postings;
+
+        Expansion(String token, List<Map.Entry<String, Posting>> entries) {
+            this.token = token;
+            this.entries = entries;
+            long total = 0;
+            for (Map.Entry<String, Posting> entry : entries) {
+                total += entry.getValue().ids.length;
+            }
+            this.postings = total;
+        }
+    }
+
+    /**
+     * Id-sorted products matching one query term, with their score for it.
+     */
+    private static final class Matches {
+        final long[] ids;
+        final int[] scores;
+        final int size;
+
+        Matches(long[] ids, int[] scores, int size) {
+            this.ids = ids;
+            this.scores = scores;
+            this.size = size;
+        }
+
+        Matches intersect(Matches other) {
+            long[] ids = new long[Math.min(size, other.size)];
+            int[] scores = new int[ids.length];
+            int n = 0;
+            for (int i = 0, j = 0; i < size && j < other.size;) {
+                if (this.ids[i] < other.ids[j]) {
+                    i++;
+                } else if (this.ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    ids[n] = this.ids[i];
+                    scores[n++] = this.scores[i++] + other.scores[j++];
+                }
+            }
+            return new Matches(ids, scores, n);
+        }
+
+        Matches filter(LongPredicate accept) {
+            long[] ids = new long[size];
+            int[] scores = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (accept.test(this.ids[i])) {
+                    ids[n] = this.ids[i];
+                    scores[n++] = this.scores[i];
+                }
+            }
+            return new Matches(ids, scores, n);
+        }
+
+        Matches probe(Expansion expansion) {
+            long[] ids = new long[size];
+            int[] scores = new int[size];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int best = 0;
+                for (Map.Entry<String, Posting> entry : expansion.entries) {
+                    Posting posting = entry.getValue();
+                    int index = Arrays.binarySearch(posting.ids, this.ids[i]);
+                    if (index >= 0) {
+                        int factor = entry.getKey().equals(expansion.token) ? 2 : 1;
+                        best = Math.max(best, posting.weights[index] * factor);
+                    }
+                }
+                if (best > 0) {
+                    ids[n] = this.ids[i];
+                    scores[n++] = this.scores[i] + best;
+                }
+            }
+            return new Matches(ids, scores, n);
+        }
+    }
+
+    /**
+     * Collects one term's postings during a rebuild as id and weight packed into one long, so a
+     * single primitive sort orders them.
+     */
+    private static final class PostingBuilder {
+        private long[] packed = new long[4];
+        private int size;
+
+        void add(long id, byte weight) {
+            if (size == packed.length) {
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            packed[size++] = (id << 8) | weight;
+        }
+
+        Posting build() {
+            long[] sorted = Arrays.copyOf(packed, size);
+            Arrays.sort(sorted);
+            long[] ids = new long[size];
+            byte[] weights = new byte[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = sorted[i] >>> 8;
+                weights[i] = (byte) (sorted[i] & 0xFF);
+            }
+            return new Posting(ids, weights);
+        }
+    }
+}
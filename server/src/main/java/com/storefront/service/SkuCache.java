@@ -0,0 +1,205 @@
+package com.storefront.service;
+
+import com.storefront.event.CatalogChangedEvent;
+import com.storefront.model.Bundle;
+import com.storefront.model.BundleItem;
+import com.storefront.model.Product;
+import com.storefront.repository.BundleItemRepository;
+import com.storefront.repository.BundleRepository;
+import com.storefront.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cache from SKU to {@link SkuDescriptor}, shared by checkout, allocation, returns
+ * and stock ingest. It is warmed once the application is ready and holds at most
+ * storefront.sku-cache.max-entries SKUs; beyond that, lookups fall through to the database.
+ *
+ * Entries are evicted on every {@link CatalogChangedEvent}: immediately, and again when the
+ * writing transaction completes. A load that overlapped an eviction is not kept, so a reader can
+ * never re-cache a value from before the change, or one a rolled-back transaction wrote.
+ */
+@Service
+public class SkuCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkuCache.class);
+
+    private final ProductRepository productRepository;
+    private final BundleRepository bundleRepository;
+    private final BundleItemRepository bundleItemRepository;
+    private final int maxEntries;
+
+    private final Map<String, SkuDescriptor> entries = new ConcurrentHashMap<>();
+    // Bumped on every eviction; loads remember the value they started from
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loadTimer;
+
+    public SkuCache(ProductRepository productRepository, BundleRepository bundleRepository,
+            BundleItemRepository bundleItemRepository, MeterRegistry meterRegistry,
+            @Value("${storefront.sku-cache.max-entries:50000}") int maxEntries) {
+        this.productRepository = productRepository;
+        this.bundleRepository = bundleRepository;
+        this.bundleItemRepository = bundleItemRepository;
+        this.maxEntries = maxEntries;
+
+        this.hits = Counter.builder("storefront.sku.cache.requests").tag("result", "hit")
+                .description("SKU lookups served from the cache").register(meterRegistry);
+        this.misses = Counter.builder("storefront.sku.cache.requests").tag("result", "miss")
+                .description("SKU lookups that went to the database").register(meterRegistry);
+        this.loadTimer = Timer.builder("storefront.sku.cache.load")
+                .description("Time spent loading SKUs from the database").register(meterRegistry);
+        Gauge.builder("storefront.sku.cache.size", entries, Map::size).register(meterRegistry);
+        Gauge.builder("storefront.sku.cache.hit.ratio", this, SkuCache::hitRatio).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        long generation = catalogVersion.get();
+        Map<String, SkuDescriptor> loaded = loadTimer.record(() -> {
+            Map<String, SkuDescriptor> result = new HashMap<>();
+            for (Product product : productRepository.findByIsActiveTrue()) {
+                result.put(product.getSku(), describe(product));
+            }
+            result.putAll(describeBundles(bundleRepository.findAll(), bundleItemRepository.findAllWithProduct(),
+                    generation));
+            return result;
+        });
+        store(loaded, generation);
+        logger.info("SKU cache warmed with {} entries", entries.size());
+    }
+
+    public Optional<SkuDescriptor> resolve(String sku) {
+        return Optional.ofNullable(resolveAll(List.of(sku)).get(sku));
+    }
+
+    /**
+     * Resolves a batch of SKUs. Unknown SKUs are absent from the result; all misses are loaded
+     * with one query per table.
+     */
+    public Map<String, SkuDescriptor> resolveAll(Collection<String> skus) {
+        Map<String, SkuDescriptor> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String sku : skus) {
+            SkuDescriptor descriptor = entries.get(sku);
+            if (descriptor != null) {
+                result.put(sku, descriptor);
+            } else {
+                missing.add(sku);
+            }
+        }
+        hits.increment(result.size());
+        if (!missing.isEmpty()) {
+            misses.increment(missing.size());
+            long generation = catalogVersion.get();
+            Map<String, SkuDescriptor> loaded = loadTimer.record(() -> load(missing, generation));
+            store(loaded, generation);
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        invalidate(event.getSku());
+    }
+
+    public void invalidate(String sku) {
+        evict(sku);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(sku);
+                }
+            });
+        }
+    }
+
+    double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void evict(String sku) {
+        catalogVersion.incrementAndGet();
+        entries.remove(sku);
+    }
+
+    private void store(Map<String, SkuDescriptor> loaded, long generation) {
+        for (Map.Entry<String, SkuDescriptor> entry : loaded.entrySet()) {
+            if (entries.size() >= maxEntries) {
+                break;
+            }
+            entries.put(entry.getKey(), entry.getValue());
+        }
+        // Something was invalidated while we were reading; the loaded values may predate it
+        if (catalogVersion.get() != generation) {
+            loaded.keySet().forEach(entries::remove);
+        }
+    }
+
+    private Map<String, SkuDescriptor> load(Set<String> skus, long generation) {
+        Map<String, SkuDescriptor> result = new HashMap<>();
+        for (Product product : productRepository.findBySkuIn(skus)) {
+            result.put(product.getSku(), describe(product));
+        }
+        Set<String> bundleSkus = new HashSet<>(skus);
+        bundleSkus.removeAll(result.keySet());
+        if (!bundleSkus.isEmpty()) {
+            List<Bundle> bundles = bundleRepository.findBySkuIn(bundleSkus);
+            if (!bundles.isEmpty()) {
+                List<Long> bundleIds = new ArrayList<>();
+                bundles.forEach(b -> bundleIds.add(b.getId()));
+                result.putAll(describeBundles(bundles, bundleItemRepository.findByBundleIdInWithProduct(bundleIds),
+                        generation));
+            }
+        }
+        return result;
+    }
+
+    private static SkuDescriptor describe(Product product) {
+        return SkuDescriptor.product(product.getId(), product.getSku(), product.getBasePrice(), product.isActive());
+    }
+
+    private static Map<String, SkuDescriptor> describeBundles(List<Bundle> bundles, List<BundleItem> items,
+            long version) {
+        Map<Long, List<BundleComposition.Component>> componentsByBundle = new HashMap<>();
+        for (BundleItem item : items) {
+            componentsByBundle.computeIfAbsent(item.getId().getBundleId(), id -> new ArrayList<>())
+                    .add(new BundleComposition.Component(item.getProduct().getId(), item.getProduct().getSku(),
+                            item.getQuantity()));
+        }
+        Map<String, SkuDescriptor> result = new HashMap<>();
+        for (Bundle bundle : bundles) {
+            BundleComposition composition = BundleComposition.of(bundle.getId(), version,
+                    componentsByBundle.getOrDefault(bundle.getId(), List.of()));
+            result.put(bundle.getSku(), SkuDescriptor.bundle(bundle.getId(), bundle.getSku(), bundle.getPrice(),
+                    !Boolean.FALSE.equals(bundle.getActive()), composition));
+        }
+        return result;
+    }
+}
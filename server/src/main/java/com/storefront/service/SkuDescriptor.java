@@ -0,0 +1,71 @@
+package com.storefront.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable view of what a SKU resolves to, as held by {@link SkuCache}. Bundles carry their
+ * {@link BundleComposition}, so callers never touch BundleItem or Product entities.
+ */
+public final class SkuDescriptor {
+
+    public enum Kind {
+        PRODUCT, BUNDLE
+    }
+
+    private final Kind kind;
+    private final Long id;
+    private final String sku;
+    private final BigDecimal price;
+    private final boolean active;
+    private final BundleComposition composition;
+
+    private SkuDescriptor(Kind kind, Long id, String sku, BigDecimal price, boolean active,
+            BundleComposition composition) {
+        this.kind = kind;
+        this.id = id;
+        this.sku = sku;
+        this.price = price;
+        this.active = active;
+        this.composition = composition;
+    }
+
+    public static SkuDescriptor product(Long id, String sku, BigDecimal price, boolean active) {
+        return new SkuDescriptor(Kind.PRODUCT, id, sku, price, active, null);
+    }
+
+    public static SkuDescriptor bundle(Long id, String sku, BigDecimal price, boolean active,
+            BundleComposition composition) {
+        return new SkuDescriptor(Kind.BUNDLE, id, sku, price, active, composition);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isBundle() {
+        return kind == Kind.BUNDLE;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getSku() {
+        return sku;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Components of a bundle; null for products.
+     */
+    public BundleComposition getComposition() {
+        return composition;
+    }
+}
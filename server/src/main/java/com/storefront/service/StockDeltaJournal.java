@@ -0,0 +1,179 @@
+package com.storefront.service;
+
+import com.storefront.model.StockDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only log of stock deltas applied to the hot stock ledger. Each record carries a
+ * monotonically increasing sequence number so recovery can skip everything at or below the
+ * checkpoint already written to stock_level.
+ *
+ * Records are written straight to the file channel (no user-space buffer), so they survive a
+ * process crash. {@link #sync()} forces them to disk and is called once per flush cycle;
+ * {@link #syncTo(long)} forces them before a reservation commits.
+ */
+class StockDeltaJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockDeltaJournal.class);
+
+    private final Path path;
+    // Held while forcing, so appends can go on and waiting committers share the next force
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long lastSeq;
+    private volatile long syncedSeq;
+
+    StockDeltaJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads every well-formed record with a sequence above {@code afterSeq}. A torn trailing
+     * record from a crash mid-write is ignored.
+     */
+    synchronized List<Entry> open(long afterSeq) {
+        List<Entry> entries = new ArrayList<>();
+        long maxSeq = afterSeq;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        Entry entry = Entry.parse(line);
+                        if (entry == null) {
+                            logger.warn("Skipping malformed stock journal record: {}", line);
+                            continue;
+                        }
+                        maxSeq = Math.max(maxSeq, entry.seq);
+                        if (entry.seq > afterSeq) {
+                            entries.add(entry);
+                        }
+                    }
+                }
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open stock journal " + path, e);
+        }
+        lastSeq = maxSeq;
+        return entries;
+    }
+
+    synchronized long append(StockDelta delta) {
+        long seq = ++lastSeq;
+        String record = seq + " " + delta.getStoreId() + " " + delta.getProductId() + " " + delta.getQuantity() + "\n";
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append to stock journal " + path, e);
+        }
+        return seq;
+    }
+
+    synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    synchronized void sync() {
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            logger.error("Cannot sync stock journal {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Makes sure every record up to {@code seq} is on disk. One force covers everything appended
+     * before it started, so a caller whose record was already covered returns without forcing.
+     * Throws UncheckedIOException when the force fails.
+     */
+    void syncTo(long seq) {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long target = lastSeq();
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot sync stock journal " + path, e);
+            }
+            syncedSeq = target;
+        }
+    }
+
+    /**
+     * Drops all records once everything up to {@code checkpoint} is persisted and nothing newer
+     * has been appended. Sequence numbers keep counting from where they were.
+     */
+    synchronized void truncateIfCheckpointed(long checkpoint) {
+        if (lastSeq != checkpoint) {
+            return;
+        }
+        try {
+            channel.truncate(0);
+            channel.force(true);
+        } catch (IOException e) {
+            logger.error("Cannot truncate stock journal {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(true);
+            channel.close();
+        } catch (IOException e) {
+            logger.error("Cannot close stock journal {}: {}", path, e.getMessage());
+        }
+    }
+
+    static final class Entry {
+        final long seq;
+        final StockDelta delta;
+
+        Entry(long seq, StockDelta delta) {
+            this.seq = seq;
+            this.delta = delta;
+        }
+
+        static Entry parse(String line) {
+            String[] parts = line.trim().split(" ");
+            if (parts.length != 4) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(parts[0]), new StockDelta(Long.parseLong(parts[1]),
+                        Long.parseLong(parts[2]), Integer.parseInt(parts[3])));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.storefront.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes stock changes of a store to its Server-Sent Events subscribers.
+ *
+ * Changes are collected per transaction and handed out when it commits, so a rolled back sale
+ * is never announced. Publishing only merges the change into each subscriber's pending map and
+ * never waits on a connection: every subscriber has its own buffer, bounded by
+ * storefront.stock-events.max-pending SKUs, in which repeated changes to one SKU coalesce into a
+ * single entry. A small delivery pool drains each buffer once per
+ * storefront.stock-events.coalesce-ms as one "stock" event. A subscriber that falls further behind
+ * loses its buffer and gets a "resync" event, telling it to reload the inventory instead.
+ */
+@Service
+public class StockEventHub {
+
+    /**
+     * Net change of one SKU. {@code quantity} is the resulting level when the writer knew it,
+     * otherwise null.
+     */
+    public record StockChange(String sku, Long productId, int delta, Integer quantity) {
+
+        StockChange merge(StockChange next) {
+            Integer merged = next.quantity() != null ? next.quantity()
+                    : quantity != null ? Integer.valueOf(quantity + next.delta()) : null;
+            return new StockChange(sku, productId, delta + next.delta(), merged);
+        }
+    }
+
+    private final long coalesceMs;
+    private final int maxPending;
+    private final long timeoutMs;
+    private final ScheduledExecutorService delivery;
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    // Key of the per-transaction change buffer bound to the transaction resources
+    private final Object transactionKey = new Object();
+
+    public StockEventHub(@Value("${storefront.stock-events.coalesce-ms:250}") long coalesceMs,
+            @Value("${storefront.stock-events.max-pending:1000}") int maxPending,
+            @Value("${storefront.stock-events.timeout-ms:1800000}") long timeoutMs,
+            @Value("${storefront.stock-events.delivery-threads:2}") int deliveryThreads) {
+        this.coalesceMs = coalesceMs;
+        this.maxPending = maxPending;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.delivery = Executors.newScheduledThreadPool(deliveryThreads, task -> {
+            Thread thread = new Thread(task, "stock-events-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Long storeId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(storeId, emitter);
+        subscribers.computeIfAbsent(storeId, id -> new CopyOnWriteArraySet<>()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    /**
+     * Announces {@code delta} units of a product in a store, when the current transaction commits
+     * or at once outside a transaction.
+     */
+    public void publish(Long storeId, Long productId, String sku, int delta) {
+        publish(storeId, new StockChange(sku, productId, delta, null));
+    }
+
+    /**
+     * As {@link #publish(Long, Long, String, int)}, for a writer that also knows the new level.
+     */
+    public void publishLevel(Long storeId, Long productId, String sku, int delta, int quantity) {
+        publish(storeId, new StockChange(sku, productId, delta, quantity));
+    }
+
+    private void publish(Long storeId, StockChange change) {
+        if (!subscribers.containsKey(storeId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            dispatch(storeId, List.of(change));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<Long, List<StockChange>> pending = (Map<Long, List<StockChange>>) TransactionSynchronizationManager
+                .getResource(transactionKey);
+        if (pending == null) {
+            Map<Long, List<StockChange>> changes = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(transactionKey, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changes.forEach(StockEventHub.this::dispatch);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionKey);
+                }
+            });
+            pending = changes;
+        }
+        pending.computeIfAbsent(storeId, id -> new ArrayList<>()).add(change);
+    }
+
+    private void dispatch(Long storeId, List<StockChange> changes) {
+        for (Subscriber subscriber : subscribers.getOrDefault(storeId, Set.of())) {
+            if (subscriber.offer(changes)) {
+                delivery.schedule(subscriber::drain, coalesceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.storeId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        delivery.shutdownNow();
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private final class Subscriber {
+        final Long storeId;
+        final SseEmitter emitter;
+        // Guarded by this
+        private Map<Long, StockChange> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean scheduled;
+
+        Subscriber(Long storeId, SseEmitter emitter) {
+            this.storeId = storeId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Merges the changes into the buffer.
+         *
+         * @return true if the caller has to schedule a drain
+         */
+        synchronized boolean offer(List<StockChange> changes) {
+            if (!overflowed) {
+                for (StockChange change : changes) {
+                    pending.merge(change.productId(), change, StockChange::merge);
+                }
+                if (pending.size() > maxPending) {
+                    overflowed = true;
+                    pending = new LinkedHashMap<>();
+                }
+            }
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        void drain() {
+            List<StockChange> changes;
+            boolean resync;
+            synchronized (this) {
+                changes = new ArrayList<>(pending.values());
+                resync = overflowed;
+                pending = new LinkedHashMap<>();
+                overflowed = false;
+            }
+            try {
+                if (resync) {
+                    emitter.send(SseEmitter.event().name("resync").data(storeId));
+                } else if (!changes.isEmpty()) {
+                    emitter.send(SseEmitter.event().name("stock").data(changes));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            }
+            // Still marked scheduled while sending, so events leave in order; pick up what came meanwhile
+            boolean again;
+            synchronized (this) {
+                again = !pending.isEmpty() || overflowed;
+                scheduled = again;
+            }
+            if (again) {
+                delivery.schedule(this::drain, coalesceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
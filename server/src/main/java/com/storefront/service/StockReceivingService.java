@@ -0,0 +1,261 @@
+package com.storefront.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.dto.StockReceiptDTO;
+import com.storefront.model.StockDelta;
+import com.storefront.repository.StockLevelRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Receives shipments into master stock: a stream of (sku, quantity) rows as a JSON array, NDJSON
+ * or CSV, read incrementally. Each chunk of rows resolves its SKUs with one
+ * {@link SkuCache#resolveAll} call; quantities are totalled per product across the receipt and
+ * added at the end with one batched upsert per chunk of products, so every stock row is written
+ * once however often its SKU repeats. Subscribers of the master store are sent the same totals
+ * when the receipt commits.
+ *
+ * Rows that cannot be applied (unreadable, unknown SKU, bundle, quantity not positive, or a
+ * quantity taking the SKU's total in the receipt past Integer.MAX_VALUE) are skipped and reported
+ * by row number: the position in the array for JSON, the line number for NDJSON and CSV. All other
+ * rows are applied in one transaction, so a receipt is applied whole or, if the body itself is
+ * malformed, not at all.
+ */
+@Service
+public class StockReceivingService {
+
+    public static final int CHUNK_SIZE = 5000;
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    public enum Format {
+        JSON, NDJSON, CSV
+    }
+
+    private final SkuCache skuCache;
+    private final StoreTopology storeTopology;
+    private final StockLevelRepository stockLevelRepository;
+    private final StockEventHub stockEventHub;
+    private final ObjectMapper objectMapper;
+
+    public StockReceivingService(SkuCache skuCache, StoreTopology storeTopology,
+            StockLevelRepository stockLevelRepository, StockEventHub stockEventHub, ObjectMapper objectMapper) {
+        this.skuCache = skuCache;
+        this.storeTopology = storeTopology;
+        this.stockLevelRepository = stockLevelRepository;
+        this.stockEventHub = stockEventHub;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public StockReceiptDTO receive(InputStream body, Format format) {
+        Receipt receipt = new Receipt(storeTopology.masterStoreId());
+        try {
+            switch (format) {
+                case JSON -> readJson(body, receipt);
+                case NDJSON -> readLines(body, receipt, this::parseNdjsonLine);
+                case CSV -> readLines(body, receipt, this::parseCsvLine);
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed JSON after row " + receipt.rows + ": "
+                    + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        receipt.flush();
+        receipt.apply();
+        return new StockReceiptDTO(receipt.rows, receipt.accepted, receipt.units, receipt.errorCount,
+                receipt.errors);
+    }
+
+    private void readJson(InputStream body, Receipt receipt) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of { \"sku\", \"quantity\" } rows");
+            }
+            long row = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new IllegalArgumentException("Unterminated JSON array after row " + row);
+                }
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    receipt.add(new Row(row, null, null, "Row is not an object"));
+                    continue;
+                }
+                receipt.add(toRow(row, parser.readValueAsTree()));
+            }
+        }
+    }
+
+    private void readLines(InputStream body, Receipt receipt, LineParser parser) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            Row row = parser.parse(lineNumber, line.strip());
+            if (row != null) {
+                receipt.add(row);
+            }
+        }
+    }
+
+    private Row parseNdjsonLine(long lineNumber, String line) {
+        try {
+            return toRow(lineNumber, objectMapper.readTree(line));
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, null, "Malformed JSON");
+        }
+    }
+
+    private Row parseCsvLine(long lineNumber, String line) {
+        // sku,quantity; the last comma separates the fields, so SKUs may contain commas
+        int comma = line.lastIndexOf(',');
+        if (comma < 0) {
+            return new Row(lineNumber, null, null, "Expected sku,quantity");
+        }
+        String sku = unquote(line.substring(0, comma));
+        String quantity = unquote(line.substring(comma + 1));
+        if (lineNumber == 1 && sku.equalsIgnoreCase("sku") && quantity.equalsIgnoreCase("quantity")) {
+            return null;
+        }
+        try {
+            return new Row(lineNumber, sku, Integer.valueOf(quantity), null);
+        } catch (NumberFormatException e) {
+            return new Row(lineNumber, sku, null, "Quantity is not a whole number: " + quantity);
+        }
+    }
+
+    private static String unquote(String field) {
+        String value = field.strip();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1).replace("\"\"", "\"");
+        }
+        return value;
+    }
+
+    private static Row toRow(long row, JsonNode node) {
+        JsonNode sku = node.path("sku");
+        JsonNode quantity = node.path("quantity");
+        if (!sku.isTextual()) {
+            return new Row(row, null, null, "Missing sku");
+        }
+        if (!quantity.canConvertToInt() || !quantity.isIntegralNumber()) {
+            return new Row(row, sku.asText(), null, "Quantity is not a whole number");
+        }
+        return new Row(row, sku.asText(), quantity.intValue(), null);
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        Row parse(long lineNumber, String line);
+    }
+
+    private record Row(long number, String sku, Integer quantity, String error) {
+    }
+
+    /**
+     * Rows of one receipt, resolved a chunk at a time as each chunk fills and totalled by product.
+     */
+    private final class Receipt {
+        final Long storeId;
+        final List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+        final Map<Long, Integer> quantities = new LinkedHashMap<>();
+        final Map<Long, String> skuOf = new HashMap<>();
+        final List<StockReceiptDTO.RowError> errors = new ArrayList<>();
+        long rows;
+        long accepted;
+        long units;
+        long errorCount;
+
+        Receipt(Long storeId) {
+            this.storeId = storeId;
+        }
+
+        void add(Row row) {
+            rows++;
+            if (row.error() != null) {
+                reject(row, row.error());
+                return;
+            }
+            if (row.quantity() <= 0) {
+                reject(row, "Quantity must be positive");
+                return;
+            }
+            chunk.add(row);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            Set<String> skus = new HashSet<>();
+            chunk.forEach(row -> skus.add(row.sku()));
+            Map<String, SkuDescriptor> resolved = skuCache.resolveAll(skus);
+
+            for (Row row : chunk) {
+                SkuDescriptor descriptor = resolved.get(row.sku());
+                if (descriptor == null) {
+                    reject(row, "Product not found");
+                } else if (descriptor.isBundle()) {
+                    reject(row, "Bundles are stocked through their products");
+                } else if ((long) quantities.getOrDefault(descriptor.getId(), 0) + row.quantity() > Integer.MAX_VALUE) {
+                    reject(row, "Total quantity received for this SKU exceeds " + Integer.MAX_VALUE);
+                } else {
+                    quantities.merge(descriptor.getId(), row.quantity(), Integer::sum);
+                    skuOf.putIfAbsent(descriptor.getId(), descriptor.getSku());
+                    accepted++;
+                    units += row.quantity();
+                }
+            }
+            chunk.clear();
+        }
+
+        void apply() {
+            List<StockDelta> deltas = new ArrayList<>(Math.min(quantities.size(), CHUNK_SIZE));
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                deltas.add(new StockDelta(storeId, entry.getKey(), entry.getValue()));
+                if (deltas.size() == CHUNK_SIZE) {
+                    stockLevelRepository.addQuantities(deltas);
+                    deltas.clear();
+                }
+            }
+            if (!deltas.isEmpty()) {
+                stockLevelRepository.addQuantities(deltas);
+            }
+            quantities.forEach((productId, quantity) ->
+                    stockEventHub.publish(storeId, productId, skuOf.get(productId), quantity));
+        }
+
+        void reject(Row row, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new StockReceiptDTO.RowError(row.number(), row.sku(), message));
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.storefront.service;
+
+import com.storefront.model.Product;
+import com.storefront.model.StockDelta;
+import com.storefront.model.StockLevelKey;
+import com.storefront.model.StockMove;
+import com.storefront.repository.InventoryTransferRepository;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StockLevelRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Applies a batch of stock moves between stores as a few set-based statements.
+ *
+ * Every stock_level row the batch touches is locked in one sweep in (store, product) order, so
+ * overlapping batches (allocations and returns alike) wait on each other instead of deadlocking.
+ * Availability is checked against the locked quantities, the net change of each row goes out as
+ * one batched upsert, and the transfer ledger as one batched insert. Hot stores are debited and
+ * credited through {@link HotStockLedger} instead and never take row locks.
+ */
+@Service
+@Transactional
+public class StockTransferService {
+
+    /**
+     * Stock of one product moved by {@link #returnAll}.
+     */
+    public record Returned(Product product, int quantity) {
+    }
+
+    private static final Comparator<StockLevelKey> KEY_ORDER = Comparator
+            .comparing(StockLevelKey::getStoreId).thenComparing(StockLevelKey::getProductId);
+
+    private final StockLevelRepository stockLevelRepository;
+    private final InventoryTransferRepository transferRepository;
+    private final ProductRepository productRepository;
+    private final HotStockLedger hotStockLedger;
+    private final StockEventHub stockEventHub;
+    private final EntityManager entityManager;
+
+    public StockTransferService(StockLevelRepository stockLevelRepository,
+            InventoryTransferRepository transferRepository, ProductRepository productRepository,
+            HotStockLedger hotStockLedger,
+            StockEventHub stockEventHub, EntityManager entityManager) {
+        this.stockLevelRepository = stockLevelRepository;
+        this.transferRepository = transferRepository;
+        this.productRepository = productRepository;
+        this.hotStockLedger = hotStockLedger;
+        this.stockEventHub = stockEventHub;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Moves all of {@code moves}, made by {@code userId}, or none of them. Throws
+     * IllegalArgumentException when a source store lacks the stock.
+     */
+    public void transfer(List<StockMove> moves, Long userId) {
+        if (moves.isEmpty()) {
+            return;
+        }
+        Map<StockLevelKey, Integer> net = new TreeMap<>(KEY_ORDER);
+        Map<StockLevelKey, Integer> taken = new TreeMap<>(KEY_ORDER);
+        Map<StockLevelKey, Integer> given = new TreeMap<>(KEY_ORDER);
+        Map<Long, String> skus = new HashMap<>();
+        for (StockMove move : moves) {
+            StockLevelKey from = new StockLevelKey(move.getFromStoreId(), move.getProductId());
+            StockLevelKey to = new StockLevelKey(move.getToStoreId(), move.getProductId());
+            net.merge(from, -move.getQuantity(), Integer::sum);
+            net.merge(to, move.getQuantity(), Integer::sum);
+            taken.merge(from, move.getQuantity(), Integer::sum);
+            given.merge(to, move.getQuantity(), Integer::sum);
+            skus.put(move.getProductId(), move.getSku());
+        }
+
+        // Hot stores: take everything first (released again on rollback), credit on commit
+        Map<Long, Map<Long, Integer>> hotDemand = new TreeMap<>();
+        taken.forEach((key, quantity) -> {
+            if (hotStockLedger.isHot(key.getStoreId())) {
+                hotDemand.computeIfAbsent(key.getStoreId(), id -> new LinkedHashMap<>())
+                        .put(key.getProductId(), quantity);
+            }
+        });
+        hotDemand.forEach((storeId, demand) -> hotStockLedger.reserve(storeId, demand, skus::get));
+
+        List<StockLevelKey> rows = new ArrayList<>();
+        for (StockLevelKey key : net.keySet()) {
+            if (!hotStockLedger.isHot(key.getStoreId())) {
+                rows.add(key);
+            }
+        }
+        // The sweep reads and writes past the session: flush pending stock rows first, and drop
+        // the now stale entities afterwards, as the @Modifying stock queries do
+        entityManager.flush();
+        Map<StockLevelKey, Integer> locked = stockLevelRepository.lockQuantities(rows);
+
+        List<StockDelta> deltas = new ArrayList<>();
+        for (StockLevelKey key : rows) {
+            int change = net.get(key);
+            if (change < 0) {
+                String sku = skus.get(key.getProductId());
+                Integer available = locked.get(key);
+                if (available == null) {
+                    throw new IllegalArgumentException("Product not available in source store: " + sku);
+                }
+                if (available + change < 0) {
+                    throw new IllegalArgumentException("Insufficient stock for " + sku + ". Available: " + available);
+                }
+            }
+            if (change != 0) {
+                deltas.add(new StockDelta(key.getStoreId(), key.getProductId(), change));
+            }
+        }
+        stockLevelRepository.addQuantities(deltas);
+        entityManager.clear();
+
+        given.forEach((key, quantity) -> {
+            if (hotStockLedger.isHot(key.getStoreId())) {
+                hotStockLedger.credit(key.getStoreId(), key.getProductId(), quantity);
+            }
+        });
+
+        transferRepository.insertAll(moves, userId);
+        for (StockMove move : moves) {
+            stockEventHub.publish(move.getFromStoreId(), move.getProductId(), move.getSku(), -move.getQuantity());
+            stockEventHub.publish(move.getToStoreId(), move.getProductId(), move.getSku(), move.getQuantity());
+        }
+    }
+
+    /**
+     * Moves all positive stock of a store back to {@code toStoreId} (end-of-day return), made by
+     * {@code userId}. A handful of set-based statements however many products the store holds;
+     * hot stores, whose stock lives in {@link HotStockLedger}, go through {@link #transfer}.
+     *
+     * @return what was moved, in product id order
+     */
+    public List<Returned> returnAll(Long storeId, Long toStoreId, Long userId) {
+        Map<Long, Integer> moved;
+        if (hotStockLedger.isHot(storeId)) {
+            // The ledger owns every item it has touched; stock_level is exact for the others
+            Set<Long> productIds = new TreeSet<>(hotStockLedger.availableByProduct(storeId).keySet());
+            stockLevelRepository.findByStoreId(storeId).forEach(level -> productIds.add(level.getId().getProductId()));
+            moved = new TreeMap<>();
+            for (Long productId : productIds) {
+                int quantity = hotStockLedger.available(storeId, productId);
+                if (quantity > 0) {
+                    moved.put(productId, quantity);
+                }
+            }
+        } else {
+            entityManager.flush();
+            moved = stockLevelRepository.moveAllStock(storeId, toStoreId);
+            entityManager.clear();
+        }
+        if (moved.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(moved.keySet()).forEach(product -> products.put(product.getId(), product));
+        List<Returned> returned = new ArrayList<>();
+        List<StockMove> moves = new ArrayList<>();
+        moved.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            returned.add(new Returned(product, quantity));
+            moves.add(new StockMove(storeId, toStoreId, productId, product.getSku(), quantity));
+        });
+
+        if (hotStockLedger.isHot(storeId)) {
+            transfer(moves, userId);
+            return returned;
+        }
+        transferRepository.insertAll(moves, userId);
+        for (StockMove move : moves) {
+            stockEventHub.publishLevel(storeId, move.getProductId(), move.getSku(), -move.getQuantity(), 0);
+            stockEventHub.publish(toStoreId, move.getProductId(), move.getSku(), move.getQuantity());
+        }
+        return returned;
+    }
+}
@@ -0,0 +1,158 @@
+package com.storefront.service;
+
+import com.storefront.dto.OrderReconciliationSummaryDTO;
+import com.storefront.dto.ReconciliationReportDTO;
+import com.storefront.model.OrderLine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Running sales aggregates per store, kept in store_sales_total and store_product_sales.
+ *
+ * Each order adds its revenue, item count and per-product sales in the transaction that creates
+ * it, so reconciling a store reads one total row and one row per product sold instead of every
+ * unreconciled order and its lines. The UPDATE on the store's total row locks it until the order
+ * commits; {@link #lockOpenSales} takes the same lock, so an order is either fully inside a
+ * reconciliation snapshot or fully after it.
+ */
+@Service
+public class StoreSalesLedger {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StoreSalesLedger(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Creates the empty total row of a new store, so its first concurrent orders update an
+     * existing row rather than racing to insert one.
+     */
+    public void open(Long storeId) {
+        jdbcTemplate.update("INSERT INTO store_sales_total (store_id) VALUES (?)", storeId);
+    }
+
+    /**
+     * Adds one order to the open sales of its store. {@code revenue} is the order total after
+     * discount; line revenue is unit price times quantity, as on the reconciliation report.
+     */
+    public void record(Long storeId, BigDecimal revenue, List<OrderLine> lines) {
+        Map<Long, long[]> quantities = new TreeMap<>();
+        Map<Long, BigDecimal> revenues = new TreeMap<>();
+        long items = 0;
+        for (OrderLine line : lines) {
+            // The product is usually an uninitialised reference; reading its id does not load it
+            Long productId = line.getProduct().getId();
+            int quantity = line.getTotalQuantity();
+            items += quantity;
+            quantities.computeIfAbsent(productId, id -> new long[1])[0] += quantity;
+            revenues.merge(productId, line.getUnitPrice().multiply(BigDecimal.valueOf(quantity)), BigDecimal::add);
+        }
+
+        // Every store gets its row from V15 or open(); the insert only covers stores saved past
+        // StoreService.createStore, such as the Master store seeded at startup before any order
+        if (jdbcTemplate.update("UPDATE store_sales_total SET open_orders = open_orders + 1, "
+                + "open_revenue = open_revenue + ?, open_items = open_items + ? WHERE store_id = ?",
+                revenue, items, storeId) == 0) {
+            jdbcTemplate.update("INSERT INTO store_sales_total (store_id, open_orders, open_revenue, open_items) "
+                    + "VALUES (?, 1, ?, ?)", storeId, revenue, items);
+        }
+
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        // The total row is locked from here until commit, so no other order of this store can
+        // insert the same product rows concurrently.
+        List<Long> productIds = new ArrayList<>(quantities.keySet());
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE store_product_sales SET quantity = quantity + ?, "
+                + "revenue = revenue + ? WHERE store_id = ? AND product_id = ?",
+                productIds, productIds.size(), (ps, productId) -> {
+                    ps.setLong(1, quantities.get(productId)[0]);
+                    ps.setBigDecimal(2, revenues.get(productId));
+                    ps.setLong(3, storeId);
+                    ps.setLong(4, productId);
+                })[0];
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                missing.add(productIds.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO store_product_sales (store_id, product_id, quantity, revenue) "
+                    + "VALUES (?, ?, ?, ?)", missing, missing.size(), (ps, productId) -> {
+                        ps.setLong(1, storeId);
+                        ps.setLong(2, productId);
+                        ps.setLong(3, quantities.get(productId)[0]);
+                        ps.setBigDecimal(4, revenues.get(productId));
+                    });
+        }
+    }
+
+    /**
+     * Reads the open sales of a store and locks its total row until the surrounding transaction
+     * ends. Orders of the store created meanwhile wait for the lock.
+     */
+    public OpenSales lockOpenSales(Long storeId) {
+        List<OpenSales> totals = jdbcTemplate.query(
+                "SELECT open_orders, open_revenue, open_items FROM store_sales_total WHERE store_id = ? FOR UPDATE",
+                (rs, rowNum) -> new OpenSales(rs.getLong(1), rs.getBigDecimal(2), rs.getLong(3), List.of()),
+                storeId);
+        if (totals.isEmpty()) {
+            return new OpenSales(0, BigDecimal.ZERO, 0, List.of());
+        }
+        List<ReconciliationReportDTO.ItemSales> products = jdbcTemplate.query(
+                "SELECT p.sku, p.name, s.quantity, s.revenue FROM store_product_sales s "
+                        + "JOIN product p ON p.id = s.product_id WHERE s.store_id = ? ORDER BY p.sku",
+                (rs, rowNum) -> new ReconciliationReportDTO.ItemSales(rs.getString(1), rs.getString(2),
+                        (int) rs.getLong(3), rs.getBigDecimal(4)),
+                storeId);
+        OpenSales total = totals.get(0);
+        return new OpenSales(total.orders(), total.revenue(), total.items(), products);
+    }
+
+    /**
+     * Moves a snapshot taken by {@link #lockOpenSales} from the open into the reconciled totals.
+     */
+    public void close(Long storeId, OpenSales snapshot) {
+        jdbcTemplate.update("UPDATE store_sales_total SET open_orders = open_orders - ?, "
+                + "open_revenue = open_revenue - ?, open_items = open_items - ?, "
+                + "reconciled_orders = reconciled_orders + ?, reconciled_revenue = reconciled_revenue + ? "
+                + "WHERE store_id = ?",
+                snapshot.orders(), snapshot.revenue(), snapshot.items(), snapshot.orders(), snapshot.revenue(),
+                storeId);
+        jdbcTemplate.update("DELETE FROM store_product_sales WHERE store_id = ?", storeId);
+    }
+
+    /**
+     * Order counts and amounts of one store, or of all stores when {@code storeId} is null.
+     */
+    public OrderReconciliationSummaryDTO summary(Long storeId) {
+        String sql = "SELECT COALESCE(SUM(open_orders), 0), COALESCE(SUM(open_revenue), 0), "
+                + "COALESCE(SUM(reconciled_orders), 0), COALESCE(SUM(reconciled_revenue), 0) FROM store_sales_total";
+        Object[] args = storeId != null ? new Object[] { storeId } : new Object[0];
+        return jdbcTemplate.queryForObject(storeId != null ? sql + " WHERE store_id = ?" : sql, (rs, rowNum) -> {
+            long open = rs.getLong(1);
+            long reconciled = rs.getLong(3);
+            BigDecimal openAmount = rs.getBigDecimal(2);
+            BigDecimal reconciledAmount = rs.getBigDecimal(4);
+            return new OrderReconciliationSummaryDTO(open + reconciled, reconciled, open,
+                    openAmount.add(reconciledAmount), reconciledAmount, openAmount);
+        }, args);
+    }
+
+    /**
+     * Open sales of a store: orders, revenue and items since the last reconciliation, with the
+     * per-product breakdown ordered by SKU.
+     */
+    public record OpenSales(long orders, BigDecimal revenue, long items,
+            List<ReconciliationReportDTO.ItemSales> products) {
+    }
+}
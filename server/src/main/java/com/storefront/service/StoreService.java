@@ -1,9 +1,12 @@
 package com.storefront.service;
 
 import com.storefront.dto.AllocationRequestDTO;
+import com.storefront.dto.BatchAllocationRequestDTO;
 import com.storefront.dto.StockAllocationDTO;
+import com.storefront.dto.StoreAllocationDTO;
 import com.storefront.model.*;
 import com.storefront.repository.*;
+import com.storefront.security.AuthenticatedUser;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,194 +15,182 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Optional;
 
 @Service
 @Transactional
 public class StoreService {
 
     private final StoreRepository storeRepository;
-    private final ProductRepository productRepository;
-    private final BundleRepository bundleRepository;
-    private final BundleItemRepository bundleItemRepository;
-    private final StockLevelRepository stockLevelRepository;
-    private final InventoryTransferRepository transferRepository;
     private final CustomerOrderRepository orderRepository;
     private final AppUserRepository userRepository;
     private final ReconciliationLogRepository reconciliationLogRepository;
     private final ObjectMapper objectMapper;
-
-    public StoreService(StoreRepository storeRepository, ProductRepository productRepository,
-            BundleRepository bundleRepository, BundleItemRepository bundleItemRepository,
-            StockLevelRepository stockLevelRepository, InventoryTransferRepository transferRepository,
-            CustomerOrderRepository orderRepository, AppUserRepository userRepository,
-            ReconciliationLogRepository reconciliationLogRepository, ObjectMapper objectMapper) {
+    private final SkuCache skuCache;
+    private final StoreSalesLedger storeSalesLedger;
+    private final StoreTopology storeTopology;
+    private final CatalogVersion catalogVersion;
+    private final StockTransferService stockTransferService;
+
+    public StoreService(StoreRepository storeRepository, CustomerOrderRepository orderRepository,
+            AppUserRepository userRepository, ReconciliationLogRepository reconciliationLogRepository,
+            ObjectMapper objectMapper, SkuCache skuCache, StoreSalesLedger storeSalesLedger,
+            StoreTopology storeTopology, CatalogVersion catalogVersion, StockTransferService stockTransferService) {
         this.storeRepository = storeRepository;
-        this.productRepository = productRepository;
-        this.bundleRepository = bundleRepository;
-        this.bundleItemRepository = bundleItemRepository;
-        this.stockLevelRepository = stockLevelRepository;
-        this.transferRepository = transferRepository;
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.reconciliationLogRepository = reconciliationLogRepository;
         this.objectMapper = objectMapper;
+        this.skuCache = skuCache;
+        this.storeSalesLedger = storeSalesLedger;
+        this.storeTopology = storeTopology;
+        this.catalogVersion = catalogVersion;
+        this.stockTransferService = stockTransferService;
     }
 
     public Store createStore(String name, Store.StoreType type, AppUser owner) {
-        return storeRepository.save(new Store(name, type, owner));
+        Store store = storeRepository.save(new Store(name, type, owner));
+        storeSalesLedger.open(store.getId());
+        storeTopology.register(store);
+        catalogVersion.bump();
+        return store;
     }
 
-    public void allocateStock(Long targetStoreId, AllocationRequestDTO request, AppUser currentUser) {
-        Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                .orElseThrow(() -> new IllegalStateException("Master Store not found"));
-        Store targetStore = storeRepository.findById(targetStoreId)
+    public void allocateStock(Long targetStoreId, AllocationRequestDTO request, AuthenticatedUser principal) {
+        Long masterStoreId = storeTopology.masterStoreId();
+        storeTopology.find(targetStoreId)
                 .orElseThrow(() -> new IllegalArgumentException("Target Store not found"));
 
         // Security Check
-        if (currentUser.getStores().stream().noneMatch(s -> s.getId().equals(targetStoreId))
-                && !currentUser.getRole().name().equals("SUPER_ADMIN")) {
-            throw new org.springframework.security.access.AccessDeniedException(
-                    "User does not have access to this store");
-        }
+        checkStoreAccess(principal, targetStoreId);
 
+        Map<String, SkuDescriptor> resolved = skuCache.resolveAll(skusOf(request.getItems()));
+        List<StockMove> moves = new ArrayList<>();
         for (StockAllocationDTO item : request.getItems()) {
-            Optional<Product> productOpt = productRepository.findBySku(item.getSku());
-
-            if (productOpt.isPresent()) {
-                // It's a single product
-                moveProduct(masterStore, targetStore, productOpt.get(), item.getQuantity(), currentUser);
-            } else {
-                // Check if it's a bundle
-                Bundle bundle = bundleRepository.findBySku(item.getSku())
-                        .orElseThrow(() -> new IllegalArgumentException(
-                                "SKU not found (Product or Bundle): " + item.getSku()));
-
-                // Explode Bundle
-                var bundleItems = bundleItemRepository.findByBundleId(bundle.getId());
-                for (BundleItem bi : bundleItems) {
-                    int totalQty = bi.getQuantity() * item.getQuantity();
-                    moveProduct(masterStore, targetStore, bi.getProduct(), totalQty, currentUser);
-                }
+            SkuDescriptor descriptor = resolved.get(item.getSku());
+            if (descriptor == null) {
+                throw new IllegalArgumentException("SKU not found (Product or Bundle): " + item.getSku());
             }
+            addMoves(moves, masterStoreId, targetStoreId, descriptor, item.getQuantity());
         }
+        stockTransferService.transfer(moves, principal.getId());
     }
 
-    private void moveProduct(Store from, Store to, Product product, int quantity, AppUser user) {
-        StockLevel fromStock = stockLevelRepository.findByStoreIdAndProductId(from.getId(), product.getId())
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Product not available in source store: " + product.getSku()));
-
-        if (fromStock.getQuantity() < quantity) {
-            throw new IllegalArgumentException(
-                    "Insufficient stock for " + product.getSku() + ". Available: " + fromStock.getQuantity());
+    /**
+     * Allocates stock from Master to many stores at once, e.g. the weekly push to every kiosk.
+     * All items are applied together, with a single lock sweep, or not at all.
+     */
+    public void allocateToStores(BatchAllocationRequestDTO request, AuthenticatedUser principal) {
+        Long masterStoreId = storeTopology.masterStoreId();
+        for (StoreAllocationDTO item : request.getItems()) {
+            storeTopology.find(item.getStoreId())
+                    .orElseThrow(() -> new IllegalArgumentException("Target Store not found: " + item.getStoreId()));
+            checkStoreAccess(principal, item.getStoreId());
         }
 
-        // Decrement Source
-        fromStock.setQuantity(fromStock.getQuantity() - quantity);
-        stockLevelRepository.save(fromStock);
+        Map<String, SkuDescriptor> resolved = skuCache.resolveAll(skusOf(request.getItems()));
+        List<StockMove> moves = new ArrayList<>();
+        for (StoreAllocationDTO item : request.getItems()) {
+            SkuDescriptor descriptor = resolved.get(item.getSku());
+            if (descriptor == null) {
+                throw new IllegalArgumentException("SKU not found (Product or Bundle): " + item.getSku());
+            }
+            addMoves(moves, masterStoreId, item.getStoreId(), descriptor, item.getQuantity());
+        }
+        stockTransferService.transfer(moves, principal.getId());
+    }
 
-        // Increment Target
-        StockLevel toStock = stockLevelRepository.findByStoreIdAndProductId(to.getId(), product.getId())
-                .orElse(new StockLevel(to, product, 0));
-        toStock.setQuantity(toStock.getQuantity() + quantity);
-        stockLevelRepository.save(toStock);
+    private static void checkStoreAccess(AuthenticatedUser principal, Long storeId) {
+        if (!principal.getStoreIds().contains(storeId) && principal.getRole() != Role.SUPER_ADMIN) {
+            throw new org.springframework.security.access.AccessDeniedException(
+                    "User does not have access to this store");
+        }
+    }
 
-        // Record Transfer
-        InventoryTransfer transfer = new InventoryTransfer(from, to, product, quantity, user);
-        transferRepository.save(transfer);
+    /**
+     * Appends the moves for {@code quantity} of a SKU, exploding bundles into their products.
+     */
+    private static void addMoves(List<StockMove> moves, Long fromStoreId, Long toStoreId, SkuDescriptor descriptor,
+            int quantity) {
+        if (!descriptor.isBundle()) {
+            // It's a single product
+            moves.add(new StockMove(fromStoreId, toStoreId, descriptor.getId(), descriptor.getSku(), quantity));
+            return;
+        }
+        // Explode Bundle
+        BundleComposition composition = descriptor.getComposition();
+        for (int c = 0; c < composition.size(); c++) {
+            moves.add(new StockMove(fromStoreId, toStoreId, composition.productId(c), composition.sku(c),
+                    composition.quantity(c) * quantity));
+        }
     }
 
-    public void returnStock(Long fromStoreId, AllocationRequestDTO request, AppUser currentUser) {
-        Store fromStore = storeRepository.findById(fromStoreId)
+    public void returnStock(Long fromStoreId, AllocationRequestDTO request, AuthenticatedUser principal) {
+        storeTopology.find(fromStoreId)
                 .orElseThrow(() -> new IllegalArgumentException("Store not found"));
-        Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                .orElseThrow(() -> new IllegalStateException("Master Store not found"));
+        Long masterStoreId = storeTopology.masterStoreId();
 
+        Map<String, SkuDescriptor> resolved = skuCache.resolveAll(skusOf(request.getItems()));
+        List<StockMove> moves = new ArrayList<>();
         for (StockAllocationDTO item : request.getItems()) {
-            Optional<Product> productOpt = productRepository.findBySku(item.getSku());
-
-            if (productOpt.isPresent()) {
-                moveProduct(fromStore, masterStore, productOpt.get(), item.getQuantity(), currentUser);
-            } else {
-                Bundle bundle = bundleRepository.findBySku(item.getSku())
-                        .orElseThrow(() -> new IllegalArgumentException(
-                                "SKU not found for return: " + item.getSku()));
-
-                var bundleItems = bundleItemRepository.findByBundleId(bundle.getId());
-                for (BundleItem bi : bundleItems) {
-                    int totalQty = bi.getQuantity() * item.getQuantity();
-                    moveProduct(fromStore, masterStore, bi.getProduct(), totalQty, currentUser);
-                }
+            SkuDescriptor descriptor = resolved.get(item.getSku());
+            if (descriptor == null) {
+                throw new IllegalArgumentException("SKU not found for return: " + item.getSku());
             }
+            addMoves(moves, fromStoreId, masterStoreId, descriptor, item.getQuantity());
         }
+        stockTransferService.transfer(moves, principal.getId());
     }
 
-    public com.storefront.dto.ReconciliationReportDTO reconcileStore(Long storeId, boolean returnStock,
-            AppUser currentUser) {
-        Store store = storeRepository.findById(storeId)
-                .orElseThrow(() -> new IllegalArgumentException("Store not found"));
-        Store masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
-                .orElseThrow(() -> new IllegalStateException("Master Store not found"));
-
-        // 1. Calculate Sales Revenue & Items Sold from unreconciled orders
-        List<CustomerOrder> orders = orderRepository.findByStoreIdAndReconciledFalse(storeId);
-
-        java.math.BigDecimal totalRevenue = java.math.BigDecimal.ZERO;
-        Map<String, com.storefront.dto.ReconciliationReportDTO.ItemSales> soldItemsMap = new HashMap<>();
-
-        for (CustomerOrder order : orders) {
-            totalRevenue = totalRevenue.add(order.getTotalAmount());
-            order.setReconciled(true);
-
-            for (com.storefront.model.OrderLine line : order.getOrderLines()) {
-                String sku = line.getProductSku();
-                String name = line.getProductName();
-                int qty = line.getQuantity();
-                java.math.BigDecimal lineTotal = line.getPrice().multiply(new java.math.BigDecimal(qty));
-
-                soldItemsMap.compute(sku, (k, v) -> {
-                    if (v == null) {
-                        return new com.storefront.dto.ReconciliationReportDTO.ItemSales(sku, name, qty, lineTotal);
-                    } else {
-                        return new com.storefront.dto.ReconciliationReportDTO.ItemSales(sku, name,
-                                v.getQuantity() + qty, v.getTotal().add(lineTotal));
-                    }
-                });
-            }
-            orderRepository.save(order);
+    private static List<String> skusOf(List<? extends StockAllocationDTO> items) {
+        List<String> skus = new ArrayList<>();
+        for (StockAllocationDTO item : items) {
+            skus.add(item.getSku());
         }
+        return skus;
+    }
 
-        int totalItemsSold = orders.stream()
-                .mapToInt(o -> o.getOrderLines().stream().mapToInt(l -> l.getQuantity()).sum()).sum();
-        List<com.storefront.dto.ReconciliationReportDTO.ItemSales> soldItemsList = new ArrayList<>(
-                soldItemsMap.values());
+    public com.storefront.dto.ReconciliationReportDTO reconcileStore(Long storeId, boolean returnStock,
+            AuthenticatedUser principal) {
+        AppUser currentUser = userRepository.getReferenceById(principal.getId());
+        StoreTopology.StoreInfo storeInfo = storeTopology.find(storeId)
+                .orElseThrow(() -> new IllegalArgumentException("Store not found"));
+        Store store = storeRepository.getReferenceById(storeId);
+        Long masterStoreId = storeTopology.masterStoreId();
 
-        // 2. Identify Stock to Return
+        // 1. Identify Stock to Return
         List<com.storefront.dto.ReconciliationReportDTO.ReturnedItem> returnedItems = new ArrayList<>();
         if (returnStock) {
-            var stockLevels = stockLevelRepository.findByStoreId(storeId);
-            for (StockLevel sl : stockLevels) {
-                if (sl.getQuantity() > 0) {
-                    returnedItems.add(new com.storefront.dto.ReconciliationReportDTO.ReturnedItem(
-                            sl.getProduct().getSku(),
-                            sl.getProduct().getName(),
-                            sl.getQuantity()));
-                    // Move back to master
-                    moveProduct(store, masterStore, sl.getProduct(), sl.getQuantity(), currentUser);
-                }
+            // Move back to master
+            for (StockTransferService.Returned item : stockTransferService.returnAll(storeId, masterStoreId,
+                    principal.getId())) {
+                returnedItems.add(new com.storefront.dto.ReconciliationReportDTO.ReturnedItem(
+                        item.product().getSku(),
+                        item.product().getName(),
+                        item.quantity()));
             }
         }
 
+        // 2. Sales Revenue & Items Sold since the last reconciliation, from the running
+        // aggregates. Locking them holds back new orders of this store until we commit, so the
+        // bulk flag below covers exactly the orders in the snapshot. Checkout takes its stock
+        // rows before this lock, so stock is returned first to keep the same lock order.
+        StoreSalesLedger.OpenSales sales = storeSalesLedger.lockOpenSales(storeId);
+        orderRepository.markReconciled(storeId);
+        storeSalesLedger.close(storeId, sales);
+
+        java.math.BigDecimal totalRevenue = sales.revenue();
+        int totalItemsSold = (int) sales.items();
+        List<com.storefront.dto.ReconciliationReportDTO.ItemSales> soldItemsList = new ArrayList<>(
+                sales.products());
+
         // 3. Get Assigned Admins
         List<String> assignedAdmins = userRepository.findByStores_Id(storeId).stream()
                 .map(AppUser::getUsername)
                 .collect(java.util.stream.Collectors.toList());
 
         com.storefront.dto.ReconciliationReportDTO reportDTO = new com.storefront.dto.ReconciliationReportDTO(
-                store.getId(),
-                store.getName(),
+                storeInfo.id(),
+                storeInfo.name(),
                 totalRevenue,
                 totalItemsSold,
                 soldItemsList,
@@ -0,0 +1,113 @@
+package com.storefront.service;
+
+import com.storefront.model.Store;
+import com.storefront.repository.StoreRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Id, name and type of every store, held as an immutable snapshot so stock paths can find the
+ * MASTER store, or check that a store exists, without a query.
+ *
+ * The snapshot is loaded once the application is ready and replaced whenever
+ * {@link StoreService#createStore} commits. Stores are never renamed or deleted. A store that is
+ * not in the snapshot is looked up in the database but not added to it, so a row inserted some
+ * other way cannot be cached before its transaction commits.
+ */
+@Service
+public class StoreTopology {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoreTopology.class);
+
+    public record StoreInfo(Long id, String name, Store.StoreType type) {
+
+        static StoreInfo of(Store store) {
+            return new StoreInfo(store.getId(), store.getName(), store.getType());
+        }
+    }
+
+    private record Snapshot(Map<Long, StoreInfo> stores, Long masterStoreId) {
+
+        static Snapshot of(Map<Long, StoreInfo> stores) {
+            Long masterStoreId = stores.values().stream()
+                    .filter(store -> store.type() == Store.StoreType.MASTER)
+                    .map(StoreInfo::id)
+                    .min(Long::compare)
+                    .orElse(null);
+            return new Snapshot(Map.copyOf(stores), masterStoreId);
+        }
+    }
+
+    private final StoreRepository storeRepository;
+    private volatile Snapshot snapshot = Snapshot.of(Map.of());
+
+    public StoreTopology(StoreRepository storeRepository) {
+        this.storeRepository = storeRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        List<Store> stores = storeRepository.findAll();
+        Map<Long, StoreInfo> byId = new HashMap<>();
+        stores.forEach(store -> byId.put(store.getId(), StoreInfo.of(store)));
+        snapshot = Snapshot.of(byId);
+        logger.info("Store topology loaded with {} stores", byId.size());
+    }
+
+    /**
+     * Id of the MASTER store. Should it not be known yet, the snapshot is reloaded once.
+     */
+    public Long masterStoreId() {
+        Long masterStoreId = snapshot.masterStoreId();
+        if (masterStoreId == null) {
+            load();
+            masterStoreId = snapshot.masterStoreId();
+        }
+        if (masterStoreId == null) {
+            throw new IllegalStateException("Master Store not found initialized");
+        }
+        return masterStoreId;
+    }
+
+    public Optional<StoreInfo> find(Long storeId) {
+        StoreInfo store = snapshot.stores().get(storeId);
+        if (store != null) {
+            return Optional.of(store);
+        }
+        return storeRepository.findById(storeId).map(StoreInfo::of);
+    }
+
+    /**
+     * Adds a newly saved store to the snapshot once its transaction commits, or at once outside
+     * a transaction.
+     */
+    public void register(Store store) {
+        StoreInfo info = StoreInfo.of(store);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(info);
+                }
+            });
+        } else {
+            add(info);
+        }
+    }
+
+    private synchronized void add(StoreInfo store) {
+        Map<Long, StoreInfo> stores = new HashMap<>(snapshot.stores());
+        stores.put(store.id(), store);
+        snapshot = Snapshot.of(stores);
+    }
+}
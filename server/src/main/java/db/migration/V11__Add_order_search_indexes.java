@@ -0,0 +1,44 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Statement;
+
+/**
+ * Indexes for the paginated order search: (created_at, id) keysets globally, per store and per
+ * customer, plus prefix lookups on customer name and phone.
+ *
+ * The customer table and customer_order.customer_id were first created by Hibernate, so they are
+ * declared here if missing. Written in Java because PostgreSQL only uses a b-tree for LIKE
+ * 'prefix%' under the C collation unless the index is built with varchar_pattern_ops, which H2
+ * does not understand.
+ */
+public class V11__Add_order_search_indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        boolean postgres = "PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName());
+        String prefixOps = postgres ? " varchar_pattern_ops" : "";
+
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS customer (id BIGSERIAL PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL, phone VARCHAR(255) NOT NULL UNIQUE, created_at TIMESTAMP)");
+            statement.execute("ALTER TABLE customer ADD COLUMN IF NOT EXISTS name_key VARCHAR(255)");
+            statement.execute("UPDATE customer SET name_key = LOWER(TRIM(name)) WHERE name_key IS NULL");
+            statement.execute("ALTER TABLE customer_order ADD COLUMN IF NOT EXISTS customer_id BIGINT "
+                    + "REFERENCES customer(id)");
+
+            statement.execute("CREATE INDEX idx_customer_name_key ON customer (name_key" + prefixOps + ")");
+            if (postgres) {
+                // Elsewhere the unique index on phone already serves prefix matches
+                statement.execute("CREATE INDEX idx_customer_phone_prefix ON customer (phone" + prefixOps + ")");
+            }
+            statement.execute("CREATE INDEX idx_customer_order_created ON customer_order (created_at, id)");
+            statement.execute("CREATE INDEX idx_customer_order_store_created ON customer_order "
+                    + "(store_id, created_at, id)");
+            statement.execute("CREATE INDEX idx_customer_order_customer_created ON customer_order "
+                    + "(customer_id, created_at, id)");
+        }
+    }
+}
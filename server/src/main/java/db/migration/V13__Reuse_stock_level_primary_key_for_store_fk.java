@@ -0,0 +1,49 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recreates the stock_level foreign key on store_id under H2 so that it is backed by the
+ * (store_id, product_id) primary key instead of an index of its own.
+ *
+ * H2 gave the constraint a single-column index, and plans compiled while stock_level was still
+ * empty pick it for WHERE store_id = ? AND product_id = ?; the cached plan then walks every row of
+ * the store for each keyed update. Written in Java because the generated constraint name differs
+ * per database, and PostgreSQL, which never indexes foreign keys, needs nothing.
+ */
+public class V13__Reuse_stock_level_primary_key_for_store_fk extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        if (!"H2".equals(context.getConnection().getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        List<String> constraints = new ArrayList<>();
+        try (PreparedStatement query = context.getConnection().prepareStatement(
+                "SELECT tc.constraint_name FROM information_schema.table_constraints tc "
+                        + "JOIN information_schema.key_column_usage kcu "
+                        + "ON kcu.constraint_schema = tc.constraint_schema AND kcu.constraint_name = tc.constraint_name "
+                        + "WHERE tc.table_name = 'STOCK_LEVEL' AND tc.constraint_type = 'FOREIGN KEY' "
+                        + "AND kcu.column_name = 'STORE_ID'")) {
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    constraints.add(rs.getString(1));
+                }
+            }
+        }
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String constraint : constraints) {
+                statement.execute("ALTER TABLE stock_level DROP CONSTRAINT \"" + constraint + "\"");
+            }
+            statement.execute("ALTER TABLE stock_level ADD CONSTRAINT fk_stock_level_store "
+                    + "FOREIGN KEY (store_id) REFERENCES store(id)");
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Date-bounded reconciliation summaries group a store's orders by reconciled flag
+CREATE INDEX idx_customer_order_store_reconciled_created ON customer_order (store_id, reconciled, created_at);
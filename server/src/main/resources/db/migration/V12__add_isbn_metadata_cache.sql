@@ -0,0 +1,12 @@
+-- Book metadata already fetched from the external books API, keyed by ISBN, so ingesting the
+-- same ISBN again does not repeat the remote lookup
+CREATE TABLE isbn_metadata (
+    isbn VARCHAR(32) PRIMARY KEY,
+    title VARCHAR(1000) NOT NULL,
+    authors VARCHAR(1000),
+    publisher VARCHAR(255),
+    description TEXT,
+    page_count INT NOT NULL DEFAULT 0,
+    list_price DECIMAL(19, 2),
+    fetched_at TIMESTAMP NOT NULL
+);
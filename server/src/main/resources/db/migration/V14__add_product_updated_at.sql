@@ -0,0 +1,6 @@
+-- Change version of each product for the inventory delta sync. Stock changes are found through
+-- stock_level.last_updated, which is scanned per store rather than indexed so that stock writes
+-- do not pay for another index.
+ALTER TABLE product ADD COLUMN updated_at TIMESTAMP;
+UPDATE product SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP);
+CREATE INDEX idx_product_updated_at ON product (updated_at);
@@ -0,0 +1,6 @@
+-- V9 only created total rows for stores that already had orders; give every other store its empty
+-- row too, so concurrent first orders update one existing row instead of racing to insert it.
+INSERT INTO store_sales_total (store_id)
+SELECT s.id FROM store s
+LEFT JOIN store_sales_total t ON t.store_id = s.id
+WHERE t.store_id IS NULL;
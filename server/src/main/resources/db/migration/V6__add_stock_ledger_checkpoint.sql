@@ -0,0 +1,7 @@
+-- Highest stock ledger journal sequence already applied to stock_level (hot inventory mode)
+CREATE TABLE stock_ledger_checkpoint (
+    id INT PRIMARY KEY,
+    last_seq BIGINT NOT NULL
+);
+
+INSERT INTO stock_ledger_checkpoint (id, last_seq) VALUES (1, 0);
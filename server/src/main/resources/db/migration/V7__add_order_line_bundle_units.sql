@@ -0,0 +1,3 @@
+-- Bundle component lines are stored once per (bundle, component, exclusion) with a unit count
+-- instead of once per bundle unit. Existing rows each stand for a single unit.
+ALTER TABLE order_line ADD COLUMN bundle_units INT NOT NULL DEFAULT 1;
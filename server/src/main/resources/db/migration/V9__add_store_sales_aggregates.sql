@@ -0,0 +1,39 @@
+-- Running sales totals per store, maintained as orders are created. The open_* columns cover
+-- orders not yet reconciled; reconciling a store moves them into the reconciled_* columns.
+CREATE TABLE store_sales_total (
+    store_id BIGINT PRIMARY KEY,
+    open_orders BIGINT NOT NULL DEFAULT 0,
+    open_revenue DECIMAL(19, 2) NOT NULL DEFAULT 0,
+    open_items BIGINT NOT NULL DEFAULT 0,
+    reconciled_orders BIGINT NOT NULL DEFAULT 0,
+    reconciled_revenue DECIMAL(19, 2) NOT NULL DEFAULT 0
+);
+
+-- Per-product sales of each store since its last reconciliation
+CREATE TABLE store_product_sales (
+    store_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity BIGINT NOT NULL,
+    revenue DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (store_id, product_id)
+);
+
+INSERT INTO store_sales_total (store_id, open_orders, open_revenue, open_items, reconciled_orders, reconciled_revenue)
+SELECT o.store_id,
+       SUM(CASE WHEN COALESCE(o.reconciled, FALSE) THEN 0 ELSE 1 END),
+       SUM(CASE WHEN COALESCE(o.reconciled, FALSE) THEN 0 ELSE o.total_amount END),
+       COALESCE((SELECT SUM(l.quantity * l.bundle_units) FROM order_line l
+                 JOIN customer_order u ON u.id = l.order_id
+                 WHERE u.store_id = o.store_id AND COALESCE(u.reconciled, FALSE) = FALSE), 0),
+       SUM(CASE WHEN COALESCE(o.reconciled, FALSE) THEN 1 ELSE 0 END),
+       SUM(CASE WHEN COALESCE(o.reconciled, FALSE) THEN o.total_amount ELSE 0 END)
+FROM customer_order o
+WHERE o.store_id IS NOT NULL
+GROUP BY o.store_id;
+
+INSERT INTO store_product_sales (store_id, product_id, quantity, revenue)
+SELECT o.store_id, l.product_id, SUM(l.quantity * l.bundle_units), SUM(l.unit_price * l.quantity * l.bundle_units)
+FROM order_line l
+JOIN customer_order o ON o.id = l.order_id
+WHERE COALESCE(o.reconciled, FALSE) = FALSE AND o.store_id IS NOT NULL AND l.product_id IS NOT NULL
+GROUP BY o.store_id, l.product_id;
@@ -0,0 +1,177 @@
+package com.storefront;
+
+import com.storefront.dto.BundleDTO;
+import com.storefront.dto.OrderItemRequestDTO;
+import com.storefront.dto.OrderRequestDTO;
+import com.storefront.model.*;
+import com.storefront.repository.*;
+import com.storefront.security.AuthenticatedUser;
+import com.storefront.service.AuthService;
+import com.storefront.service.InventoryService;
+import com.storefront.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compares checkout latency of the batched OrderService path against the previous
+ * per-line implementation (one SKU lookup and one locked stock read per product unit).
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_bench_checkout;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+public class CheckoutBenchmarkTest {
+
+    private static final int PRODUCTS = 25;
+    private static final int BUNDLE_LINES = 5;
+    private static final int WARMUP = 30;
+    private static final int ITERATIONS = 300;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private BundleRepository bundleRepository;
+    @Autowired
+    private BundleItemRepository bundleItemRepository;
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+    @Autowired
+    private CustomerOrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Store store;
+    private AppUser user;
+    private OrderRequestDTO basket;
+
+    @BeforeEach
+    void setup() {
+        user = authService.register("bench_checkout", "pass", Role.SUPER_ADMIN);
+        store = storeRepository.save(new Store("Bench Store", Store.StoreType.VIRTUAL, null));
+
+        List<OrderItemRequestDTO> items = new ArrayList<>();
+        List<BundleDTO.BundleItemDTO> kit = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = inventoryService.createProduct(
+                    new Product("BENCH-" + i, "STATIONERY", "Bench " + i, new BigDecimal("2.50"), null));
+            stockLevelRepository.save(new StockLevel(store, product, 1_000_000));
+
+            OrderItemRequestDTO item = new OrderItemRequestDTO();
+            item.setSku(product.getSku());
+            item.setQuantity(1 + i % 3);
+            items.add(item);
+
+            if (i % 2 == 0) {
+                BundleDTO.BundleItemDTO component = new BundleDTO.BundleItemDTO();
+                component.setProductSku(product.getSku());
+                component.setQuantity(1);
+                kit.add(component);
+            }
+        }
+
+        for (int b = 0; b < BUNDLE_LINES; b++) {
+            BundleDTO bundle = new BundleDTO();
+            bundle.setSku("BENCH-KIT-" + b);
+            bundle.setName("Bench Kit " + b);
+            bundle.setPrice(new BigDecimal("20"));
+            bundle.setItems(kit);
+            inventoryService.createBundle(bundle);
+
+            OrderItemRequestDTO item = new OrderItemRequestDTO();
+            item.setSku(bundle.getSku());
+            item.setQuantity(2);
+            items.add(item);
+        }
+
+        basket = new OrderRequestDTO();
+        basket.setStoreId(store.getId());
+        basket.setItems(items);
+    }
+
+    @Test
+    void compareCheckoutLatency() {
+        long[] legacy = measure(() -> transactionTemplate.executeWithoutResult(s -> legacyCheckout(basket)));
+        long[] batched = measure(() -> orderService.createOrder(basket, AuthenticatedUser.of(user)));
+
+        report("per-line (previous)", legacy);
+        report("batched", batched);
+    }
+
+    private long[] measure(Runnable checkout) {
+        for (int i = 0; i < WARMUP; i++) {
+            checkout.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            checkout.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private void report(String label, long[] sorted) {
+        System.out.printf("Checkout %-20s lines=%d p50=%.2fms p99=%.2fms max=%.2fms%n", label,
+                basket.getItems().size(),
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) Math.ceil(sorted.length * 0.99) - 1] / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    // Mirrors the pre-batching createOrder: per-line SKU resolution and per-unit locked stock updates
+    private void legacyCheckout(OrderRequestDTO request) {
+        CustomerOrder order = orderRepository.save(
+                new CustomerOrder(store, user, BigDecimal.ZERO, CustomerOrder.OrderStatus.COMPLETED));
+        List<OrderLine> lines = new ArrayList<>();
+        for (OrderItemRequestDTO item : request.getItems()) {
+            Optional<Product> productOpt = productRepository.findBySku(item.getSku());
+            if (productOpt.isPresent()) {
+                legacyDecrement(productOpt.get(), item.getQuantity());
+                OrderLine line = new OrderLine(productOpt.get(), null, productOpt.get().getBasePrice(), false,
+                        item.getQuantity());
+                line.setOrder(order);
+                lines.add(line);
+            } else {
+                Bundle bundle = bundleRepository.findBySku(item.getSku()).orElseThrow();
+                List<BundleItem> bundleItems = bundleItemRepository.findByBundleId(bundle.getId());
+                for (int i = 0; i < item.getQuantity(); i++) {
+                    for (BundleItem bi : bundleItems) {
+                        legacyDecrement(bi.getProduct(), bi.getQuantity());
+                        OrderLine line = new OrderLine(bi.getProduct(), bundle, BigDecimal.ZERO, false,
+                                bi.getQuantity());
+                        line.setOrder(order);
+                        lines.add(line);
+                    }
+                }
+            }
+        }
+        orderLineRepository.saveAll(lines);
+    }
+
+    private void legacyDecrement(Product product, int quantity) {
+        StockLevel stock = stockLevelRepository.findByStoreIdAndProductId(store.getId(), product.getId())
+                .orElseThrow();
+        stock.setQuantity(stock.getQuantity() - quantity);
+        stockLevelRepository.save(stock);
+    }
+}
@@ -5,6 +5,12 @@ import com.storefront.dto.AllocationRequestDTO;
 import com.storefront.dto.StockAllocationDTO;
 import com.storefront.model.Role;
 import com.storefront.model.Store;
+import com.storefront.dto.OrderItemRequestDTO;
+import com.storefront.dto.OrderRequestDTO;
+import com.storefront.model.Product;
+import com.storefront.model.StockLevel;
+import com.storefront.repository.CustomerOrderRepository;
+import com.storefront.repository.ProductRepository;
 import com.storefront.repository.StockLevelRepository;
 import com.storefront.repository.StoreRepository;
 import com.storefront.service.AuthService;
@@ -27,6 +33,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -47,6 +54,10 @@ public class ConcurrencyIntegrationTest {
     @Autowired
     private StockLevelRepository stockLevelRepository;
     @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerOrderRepository orderRepository;
+    @Autowired
     private org.springframework.transaction.support.TransactionTemplate transactionTemplate;
 
     private String adminToken;
@@ -67,13 +78,18 @@ public class ConcurrencyIntegrationTest {
             adminToken = authService.generateToken(authService.login("admin_conc", "pass").get());
         }
 
-        // Product
-        var prod = inventoryService.createProduct(
-                new com.storefront.model.Product("SKU-CONC-1", "ALL", "Conc", new BigDecimal("10"), null));
-        productId = prod.getId();
+        // Product (created once, the context and its database are shared by all tests)
+        var existing = productRepository.findBySku("SKU-CONC-1");
+        if (existing.isPresent()) {
+            productId = existing.get().getId();
+        } else {
+            var prod = inventoryService.createProduct(
+                    new com.storefront.model.Product("SKU-CONC-1", "ALL", "Conc", new BigDecimal("10"), null));
+            productId = prod.getId();
 
-        // Stock (Set 100)
-        inventoryService.addStock("SKU-CONC-1", 100);
+            // Stock (Set 100)
+            inventoryService.addStock("SKU-CONC-1", 100);
+        }
 
         // Virtual Store
         var store = new Store("Virtual Conc", Store.StoreType.VIRTUAL, null);
@@ -144,4 +160,65 @@ public class ConcurrencyIntegrationTest {
             throw new RuntimeException("Zero successful allocations - check configuration");
         }
     }
+
+    @Test
+    void testConcurrentCheckoutDoesNotOversell() throws Exception {
+        // 200 shoppers race for 100 units of the same SKU, one unit each.
+        // Every unit may be sold at most once and stock must never go negative.
+        int threads = 200;
+        int available = 100;
+
+        Product product = inventoryService.createProduct(
+                new Product("SKU-CONC-HOT", "ALL", "Hot Item", new BigDecimal("5"), null));
+        Store store = storeRepository.save(new Store("Virtual Hot", Store.StoreType.VIRTUAL, null));
+        stockLevelRepository.save(new StockLevel(store, product, available));
+
+        OrderRequestDTO order = new OrderRequestDTO();
+        order.setStoreId(store.getId());
+        OrderItemRequestDTO item = new OrderItemRequestDTO();
+        item.setSku("SKU-CONC-HOT");
+        item.setQuantity(1);
+        order.setItems(List.of(item));
+        String jsonRequest = objectMapper.writeValueAsString(order);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        AtomicInteger successCount = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    int status = mockMvc.perform(post("/api/v1/orders")
+                            .header("Authorization", "Bearer " + adminToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(jsonRequest))
+                            .andReturn().getResponse().getStatus();
+                    if (status == 200) {
+                        successCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    // Rejected or timed out checkouts are expected once stock runs out
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(120, TimeUnit.SECONDS), "Checkouts did not finish in time");
+        executor.shutdown();
+
+        int remaining = stockLevelRepository.findQuantity(store.getId(), product.getId()).orElseThrow();
+        long orders = orderRepository.findByStoreId(store.getId()).size();
+
+        System.out.println("Checkout success count: " + successCount.get() + ", remaining: " + remaining);
+
+        assertTrue(remaining >= 0, "Stock must never go negative");
+        assertTrue(successCount.get() <= available, "More units sold than were in stock");
+        assertEquals(available - successCount.get(), remaining, "Every successful checkout takes exactly one unit");
+        assertEquals(successCount.get(), orders, "Every successful checkout persists exactly one order");
+        assertTrue(successCount.get() > 0, "Zero successful checkouts - check configuration");
+    }
 }
@@ -0,0 +1,148 @@
+package com.storefront;
+
+import com.storefront.model.Product;
+import com.storefront.model.StockLevel;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StockLevelRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.HotStockLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_hotledger;DB_CLOSE_DELAY=-1;MODE=PostgreSQL")
+public class HotStockLedgerIntegrationTest {
+
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    private Store store;
+    private Product product;
+
+    @BeforeEach
+    void setup() {
+        store = storeRepository.save(new Store("Hot Store " + UUID.randomUUID(), Store.StoreType.VIRTUAL, null));
+        product = productRepository.save(new Product("SKU-HOT-" + UUID.randomUUID(), "BOOK", "Hot Book",
+                BigDecimal.TEN, null));
+        stockLevelRepository.save(new StockLevel(store, product, 20));
+    }
+
+    private HotStockLedger newLedger(Path journal) {
+        HotStockLedger ledger = new HotStockLedger(Set.of(store.getId()), journal, storeRepository,
+                stockLevelRepository, jdbcTemplate, transactionManager);
+        ledger.init();
+        return ledger;
+    }
+
+    private int persistedQuantity() {
+        return stockLevelRepository.findQuantity(store.getId(), product.getId()).orElseThrow();
+    }
+
+    @Test
+    void testReservationsAreWrittenBehind() {
+        HotStockLedger ledger = newLedger(tempDir.resolve("ledger.journal"));
+
+        ledger.reserve(store.getId(), new TreeMap<>(Map.of(product.getId(), 4)), id -> product.getSku());
+        assertEquals(16, ledger.available(store.getId(), product.getId()));
+        assertEquals(20, persistedQuantity());
+
+        ledger.flush();
+        assertEquals(16, persistedQuantity());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ledger.reserve(store.getId(), Map.of(product.getId(), 17), id -> product.getSku()));
+        assertEquals("Insufficient stock for " + product.getSku() + ". Available: 16", e.getMessage());
+        ledger.shutdown();
+    }
+
+    @Test
+    void testRolledBackReservationIsReleased() {
+        HotStockLedger ledger = newLedger(tempDir.resolve("ledger.journal"));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            ledger.reserve(store.getId(), Map.of(product.getId(), 5), id -> product.getSku());
+            assertEquals(15, ledger.available(store.getId(), product.getId()));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(20, ledger.available(store.getId(), product.getId()));
+        ledger.shutdown();
+        assertEquals(20, persistedQuantity());
+    }
+
+    @Test
+    void testJournalIsReplayedAfterCrash() {
+        Path journal = tempDir.resolve("ledger.journal");
+        HotStockLedger crashed = newLedger(journal);
+        crashed.reserve(store.getId(), Map.of(product.getId(), 3), id -> product.getSku());
+        crashed.credit(store.getId(), product.getId(), 1);
+        // No flush and no shutdown: the deltas only exist in the journal
+        assertEquals(20, persistedQuantity());
+
+        HotStockLedger recovered = newLedger(journal);
+        assertEquals(18, persistedQuantity());
+        assertEquals(18, recovered.available(store.getId(), product.getId()));
+        recovered.shutdown();
+    }
+
+    @Test
+    void testConcurrentReservationsDoNotOversell() throws Exception {
+        HotStockLedger ledger = newLedger(tempDir.resolve("ledger.journal"));
+        int threads = 100;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    ledger.reserve(store.getId(), Map.of(product.getId(), 1), id -> product.getSku());
+                    succeeded.incrementAndGet();
+                } catch (IllegalArgumentException | InterruptedException e) {
+                    // Expected once stock runs out
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        assertEquals(20, succeeded.get());
+        assertEquals(0, ledger.available(store.getId(), product.getId()));
+        ledger.shutdown();
+        assertEquals(0, persistedQuantity());
+    }
+}
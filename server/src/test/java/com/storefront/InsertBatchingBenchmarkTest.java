@@ -0,0 +1,125 @@
+package com.storefront;
+
+import com.storefront.dto.AllocationRequestDTO;
+import com.storefront.dto.OrderItemRequestDTO;
+import com.storefront.dto.OrderRequestDTO;
+import com.storefront.dto.StockAllocationDTO;
+import com.storefront.model.*;
+import com.storefront.repository.*;
+import com.storefront.security.AuthenticatedUser;
+import com.storefront.service.AuthService;
+import com.storefront.service.OrderService;
+import com.storefront.service.StoreService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Insert throughput of large orders and allocations, the two write paths that persist one row
+ * per line or item.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb_bench_inserts;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.jpa.show-sql=false" })
+public class InsertBatchingBenchmarkTest {
+
+    private static final int ORDER_LINES = 1000;
+    private static final int ALLOCATION_ITEMS = 500;
+    private static final int WARMUP = 3;
+    private static final int ITERATIONS = 15;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private StoreService storeService;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    private AuthenticatedUser principal;
+    private Store store;
+    private OrderRequestDTO order;
+    private AllocationRequestDTO allocation;
+
+    @BeforeEach
+    void setup() {
+        principal = AuthenticatedUser.of(authService.register("bench_inserts", "pass", Role.SUPER_ADMIN));
+        Store master = storeRepository.findFirstByType(Store.StoreType.MASTER)
+                .orElseGet(() -> storeRepository.save(new Store("Master", Store.StoreType.MASTER, null)));
+        store = storeRepository.save(new Store("Bench Inserts", Store.StoreType.VIRTUAL, null));
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ORDER_LINES; i++) {
+            products.add(new Product("INS-" + i, "STATIONERY", "Insert " + i, BigDecimal.ONE, null));
+        }
+        products = productRepository.saveAll(products);
+
+        List<StockDelta> stock = new ArrayList<>();
+        List<OrderItemRequestDTO> orderItems = new ArrayList<>();
+        List<StockAllocationDTO> allocationItems = new ArrayList<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            stock.add(new StockDelta(store.getId(), product.getId(), 1_000_000));
+            stock.add(new StockDelta(master.getId(), product.getId(), 1_000_000));
+
+            OrderItemRequestDTO item = new OrderItemRequestDTO();
+            item.setSku(product.getSku());
+            item.setQuantity(1);
+            orderItems.add(item);
+
+            if (i < ALLOCATION_ITEMS) {
+                StockAllocationDTO allocated = new StockAllocationDTO();
+                allocated.setSku(product.getSku());
+                allocated.setQuantity(1);
+                allocationItems.add(allocated);
+            }
+        }
+        stockLevelRepository.addQuantities(stock);
+
+        order = new OrderRequestDTO();
+        order.setStoreId(store.getId());
+        order.setItems(orderItems);
+        allocation = new AllocationRequestDTO();
+        allocation.setItems(allocationItems);
+    }
+
+    @Test
+    void measureInsertThroughput() {
+        report("order", ORDER_LINES, measure(() -> orderService.createOrder(order, principal)));
+        report("allocation", ALLOCATION_ITEMS, measure(() -> storeService.allocateStock(store.getId(), allocation, principal)));
+    }
+
+    private long[] measure(Runnable write) {
+        for (int i = 0; i < WARMUP; i++) {
+            write.run();
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            write.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private void report(String label, int rows, long[] sorted) {
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        System.out.printf("Inserts %-10s rows=%d p50=%.1fms max=%.1fms throughput=%.0f rows/s%n", label, rows,
+                p50, sorted[sorted.length - 1] / 1e6, rows / (p50 / 1000));
+    }
+}
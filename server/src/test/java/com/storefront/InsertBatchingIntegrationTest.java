@@ -0,0 +1,101 @@
+package com.storefront;
+
+import com.storefront.model.*;
+import com.storefront.repository.*;
+import com.storefront.service.AuthService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb_batching;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.jpa.properties.hibernate.generate_statistics=true" })
+public class InsertBatchingIntegrationTest {
+
+    private static final int ROWS = 120;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerOrderRepository orderRepository;
+    @Autowired
+    private OrderLineRepository orderLineRepository;
+    @Autowired
+    private InventoryTransferRepository transferRepository;
+
+    private Statistics statistics;
+    private AppUser user;
+    private Store store;
+    private Product product;
+
+    @BeforeEach
+    void setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = authService.login("batch_user", "pass")
+                .orElseGet(() -> authService.register("batch_user", "pass", Role.SUPER_ADMIN));
+        store = storeRepository.save(new Store("Batch Store", Store.StoreType.VIRTUAL, null));
+        product = productRepository.findBySku("SKU-BATCH").orElseGet(() -> productRepository.save(
+                new Product("SKU-BATCH", "BOOK", "Batch", BigDecimal.ONE, null)));
+    }
+
+    @Test
+    void testOrderLinesAreInsertedInBatches() {
+        long before = orderLineRepository.count();
+        long prepared = countPreparedStatements(() -> {
+            CustomerOrder order = orderRepository.save(
+                    new CustomerOrder(store, user, BigDecimal.ZERO, CustomerOrder.OrderStatus.COMPLETED));
+            List<OrderLine> lines = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                OrderLine line = new OrderLine(product, null, BigDecimal.ONE, false, 1);
+                line.setOrder(order);
+                lines.add(line);
+            }
+            orderLineRepository.saveAll(lines);
+        });
+
+        // One order insert, three line batches of up to 50, plus a few sequence calls
+        assertTrue(prepared < 10, "expected batched inserts, got " + prepared + " statements");
+        assertEquals(before + ROWS, orderLineRepository.count());
+    }
+
+    @Test
+    void testTransfersAreInsertedInBatches() {
+        long before = transferRepository.count();
+        long prepared = countPreparedStatements(() -> {
+            List<InventoryTransfer> transfers = new ArrayList<>();
+            for (int i = 0; i < ROWS; i++) {
+                transfers.add(new InventoryTransfer(store, store, product, 1, user));
+            }
+            transferRepository.saveAll(transfers);
+        });
+
+        assertTrue(prepared < 10, "expected batched inserts, got " + prepared + " statements");
+        assertEquals(before + ROWS, transferRepository.count());
+    }
+
+    private long countPreparedStatements(Runnable work) {
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status -> work.run());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,118 @@
+package com.storefront;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.model.Product;
+import com.storefront.model.Role;
+import com.storefront.model.StockDelta;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StockLevelRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.AuthService;
+import com.storefront.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the changes are found by the time they were written, so they must commit
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_invdelta;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class InventoryDeltaSyncIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    private String token;
+    private Store store;
+    private Store otherStore;
+    private final Map<String, Product> products = new HashMap<>();
+
+    @BeforeEach
+    void setup() {
+        token = authService.generateToken(authService.login("delta_emp", "pass")
+                .orElseGet(() -> authService.register("delta_emp", "pass", Role.EMPLOYEE)));
+        store = storeRepository.save(new Store("Delta Store", Store.StoreType.VIRTUAL, null));
+        otherStore = storeRepository.save(new Store("Delta Other", Store.StoreType.VIRTUAL, null));
+        for (String suffix : List.of("STOCKED", "OTHER", "RENAMED", "GONE", "QUIET")) {
+            String sku = "SKU-DELTA-" + suffix + "-" + store.getId();
+            products.put(suffix, productRepository.save(
+                    new Product(sku, "STATIONERY", "Delta " + suffix, BigDecimal.ONE, null)));
+        }
+        stockLevelRepository.addQuantities(List.of(
+                new StockDelta(store.getId(), products.get("STOCKED").getId(), 5),
+                new StockDelta(store.getId(), products.get("QUIET").getId(), 5)));
+    }
+
+    @Test
+    void testChangesSinceWatermarkIncludeStockProductsAndTombstones() throws Exception {
+        JsonNode full = changes(null);
+        assertTrue(full.get("full").asBoolean());
+        assertTrue(skus(full).contains(products.get("QUIET").getSku()));
+
+        LocalDateTime since = LocalDateTime.now();
+        Thread.sleep(5);
+        stockLevelRepository.addQuantities(List.of(
+                new StockDelta(store.getId(), products.get("STOCKED").getId(), 3),
+                new StockDelta(otherStore.getId(), products.get("OTHER").getId(), 3)));
+        Product renamed = products.get("RENAMED");
+        renamed.setName("Delta Renamed Again");
+        inventoryService.updateProduct(renamed.getId(), renamed);
+        inventoryService.deleteProduct(products.get("GONE").getId());
+
+        JsonNode delta = changes(since);
+        assertEquals(false, delta.get("full").asBoolean());
+        List<String> skus = skus(delta);
+        assertEquals(List.of(products.get("STOCKED").getSku(), products.get("RENAMED").getSku()), skus);
+        assertEquals(8, delta.get("items").get(0).get("quantity").asInt());
+        assertEquals("Delta Renamed Again", delta.get("items").get(1).get("name").asText());
+        assertEquals(1, delta.get("removed").size());
+        assertEquals(products.get("GONE").getSku(), delta.get("removed").get(0).get("sku").asText());
+        assertTrue(LocalDateTime.parse(delta.get("watermark").asText()).isBefore(LocalDateTime.now()));
+    }
+
+    private JsonNode changes(LocalDateTime since) throws Exception {
+        var request = get("/api/v1/inventory/view/changes")
+                .header("Authorization", "Bearer " + token)
+                .param("storeId", store.getId().toString());
+        if (since != null) {
+            request.param("since", since.toString());
+        }
+        return objectMapper.readTree(mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+
+    private List<String> skus(JsonNode response) {
+        List<String> skus = new ArrayList<>();
+        response.get("items").forEach(item -> skus.add(item.get("sku").asText()));
+        return skus;
+    }
+}
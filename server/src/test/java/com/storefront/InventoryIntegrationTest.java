@@ -20,8 +20,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.List;
 
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -40,6 +44,8 @@ public class InventoryIntegrationTest {
     private StoreRepository storeRepository;
     @Autowired
     private com.storefront.service.InventoryService inventoryService;
+    @Autowired
+    private com.storefront.repository.StockLevelRepository stockLevelRepository;
 
     private String adminToken;
     private String employeeToken;
@@ -156,4 +162,119 @@ public class InventoryIntegrationTest {
         // Verify it is still in DB (Active = false)
         // Direct DB check or Admin endpoint including inactive (if exists)
     }
+
+    @Test
+    void testBulkStockReceivingAcceptsJsonCsvAndNdjson() throws Exception {
+        Product first = inventoryService.createProduct(
+                new Product("SKU-RCV-1", "BOOK", "Received One", new BigDecimal("5"), null));
+        Product second = inventoryService.createProduct(
+                new Product("SKU-RCV,2", "STATIONERY", "Received Two", new BigDecimal("3"), null));
+        BundleDTO bundle = new BundleDTO();
+        bundle.setSku("BUN-RCV");
+        bundle.setName("Received Bundle");
+        bundle.setPrice(BigDecimal.TEN);
+        BundleDTO.BundleItemDTO item = new BundleDTO.BundleItemDTO();
+        item.setProductSku("SKU-RCV-1");
+        item.setQuantity(1);
+        bundle.setItems(List.of(item));
+        inventoryService.createBundle(bundle);
+
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"sku\":\"SKU-RCV-1\",\"quantity\":10},{\"sku\":\"SKU-NOPE\",\"quantity\":1},"
+                        + "{\"sku\":\"SKU-RCV-1\",\"quantity\":5},{\"sku\":\"BUN-RCV\",\"quantity\":1},"
+                        + "{\"sku\":\"SKU-RCV-1\",\"quantity\":\"x\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(5))
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.units").value(15))
+                .andExpect(jsonPath("$.errorCount").value(3))
+                .andExpect(jsonPath("$.errors[0].row").value(5))
+                .andExpect(jsonPath("$.errors[1].row").value(2))
+                .andExpect(jsonPath("$.errors[1].sku").value("SKU-NOPE"))
+                .andExpect(jsonPath("$.errors[2].row").value(4));
+
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType("text/csv")
+                .content("sku,quantity\nSKU-RCV-1,7\n\"SKU-RCV,2\",4\nSKU-RCV-1,-2\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(4));
+
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType("application/x-ndjson")
+                .content("{\"sku\":\"SKU-RCV,2\",\"quantity\":6}\n\n{not json}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(3));
+
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + employeeToken)
+                .contentType("text/csv")
+                .content("SKU-RCV-1,1\n"))
+                .andExpect(status().isForbidden());
+
+        // A malformed JSON body applies nothing
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"sku\":\"SKU-RCV-1\",\"quantity\":100},"))
+                .andExpect(status().isBadRequest());
+
+        Long masterId = storeRepository.findFirstByType(Store.StoreType.MASTER).get().getId();
+        assertEquals(22, stockLevelRepository.findByStoreIdAndProductId(masterId, first.getId()).get().getQuantity());
+        assertEquals(10, stockLevelRepository.findByStoreIdAndProductId(masterId, second.getId()).get().getQuantity());
+    }
+
+    @Test
+    void testBulkStockReceivingRejectsRowsOverflowingTheSkuTotal() throws Exception {
+        Product product = inventoryService.createProduct(
+                new Product("SKU-RCV-BIG", "STATIONERY", "Received Big", BigDecimal.ONE, null));
+
+        mockMvc.perform(post("/api/v1/inventory/stock/bulk")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType("text/csv")
+                .content("SKU-RCV-BIG,2000000000\nSKU-RCV-BIG,2000000000\nSKU-RCV-BIG,100000000\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.units").value(2100000000))
+                .andExpect(jsonPath("$.errorCount").value(1))
+                .andExpect(jsonPath("$.errors[0].row").value(2));
+
+        Long masterId = storeRepository.findFirstByType(Store.StoreType.MASTER).get().getId();
+        assertEquals(2100000000,
+                stockLevelRepository.findByStoreIdAndProductId(masterId, product.getId()).get().getQuantity());
+    }
+
+    @Test
+    void testProductAndBundleListingsAnswerConditionalGets() throws Exception {
+        String etag = mockMvc.perform(get("/api/v1/inventory/products")
+                .header("Authorization", "Bearer " + employeeToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/v1/inventory/products")
+                .header("Authorization", "Bearer " + employeeToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/v1/inventory/bundles")
+                .header("Authorization", "Bearer " + employeeToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        inventoryService.createProduct(
+                new Product("SKU-ETAG-1", "STATIONERY", "Etag Pen", new BigDecimal("2"), null));
+
+        mockMvc.perform(get("/api/v1/inventory/products")
+                .header("Authorization", "Bearer " + employeeToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$[?(@.sku == 'SKU-ETAG-1')].name").value("Etag Pen"));
+    }
 }
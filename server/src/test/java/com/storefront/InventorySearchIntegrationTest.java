@@ -188,4 +188,27 @@ public class InventorySearchIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].product.name").value("Advanced Spring"));
     }
+
+    @Test
+    void testSummaryViewReturnsFlatRows() throws Exception {
+        mockMvc.perform(get("/api/v1/stores/" + storeId + "/inventory")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("view", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].sku").value("ISBN-111"))
+                .andExpect(jsonPath("$[0].quantity").value(10))
+                .andExpect(jsonPath("$[0].price").value(10))
+                .andExpect(jsonPath("$[0].lastUpdated").exists())
+                .andExpect(jsonPath("$[0].product").doesNotExist())
+                .andExpect(jsonPath("$[0].store").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/stores/" + storeId + "/inventory")
+                .header("Authorization", "Bearer " + adminToken)
+                .param("view", "summary")
+                .param("search", "0134685991"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Java Basics"));
+    }
 }
@@ -0,0 +1,160 @@
+package com.storefront;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.model.Product;
+import com.storefront.model.Role;
+import com.storefront.model.StockDelta;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StockLevelRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.AuthService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not @Transactional: the streaming body runs on an async thread and must see committed rows
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_invview;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class InventoryViewIntegrationTest {
+
+    private static final int PRODUCTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StockLevelRepository stockLevelRepository;
+
+    private String token;
+    private Store store;
+
+    @BeforeEach
+    void setup() {
+        if (storeRepository.findFirstByType(Store.StoreType.MASTER).isEmpty()) {
+            storeRepository.save(new Store("Master Warehouse", Store.StoreType.MASTER, null));
+        }
+        token = authService.generateToken(authService.login("view_emp", "pass")
+                .orElseGet(() -> authService.register("view_emp", "pass", Role.EMPLOYEE)));
+
+        // Each test gets a fresh store; only every other product has a stock row there
+        store = storeRepository.save(new Store("View Store", Store.StoreType.VIRTUAL, null));
+        List<StockDelta> stock = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            String sku = "SKU-VIEW-" + i;
+            Product product = productRepository.findBySku(sku).orElseGet(() -> productRepository.save(
+                    new Product(sku, "STATIONERY", "View " + sku, BigDecimal.ONE, null)));
+            if (i % 2 == 0) {
+                stock.add(new StockDelta(store.getId(), product.getId(), 10 + i));
+            }
+        }
+        stockLevelRepository.addQuantities(stock);
+    }
+
+    @Test
+    void testKeysetPagesCoverCatalogOnce() throws Exception {
+        List<String> skus = new ArrayList<>();
+        Long after = null;
+        int pages = 0;
+        do {
+            var requestBuilder = get("/api/v1/inventory/view/page")
+                    .header("Authorization", "Bearer " + token)
+                    .param("storeId", store.getId().toString())
+                    .param("limit", "2");
+            if (after != null) {
+                requestBuilder.param("after", after.toString());
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(requestBuilder)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("items").forEach(item -> skus.add(item.get("sku").asText()));
+            after = page.get("nextAfter").isNull() ? null : page.get("nextAfter").asLong();
+            pages++;
+        } while (after != null);
+
+        assertEquals(productRepository.count(), skus.size());
+        assertEquals(skus.size(), skus.stream().distinct().count());
+        assertTrue(pages > 1);
+        assertTrue(skus.containsAll(List.of("SKU-VIEW-0", "SKU-VIEW-4")));
+    }
+
+    @Test
+    void testStreamWritesOneProductPerLine() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/api/v1/inventory/view/stream")
+                .header("Authorization", "Bearer " + token)
+                .param("storeId", store.getId().toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        int matched = 0;
+        for (String line : body.split("\n")) {
+            JsonNode row = objectMapper.readTree(line);
+            String sku = row.get("sku").asText();
+            if (sku.startsWith("SKU-VIEW-")) {
+                int index = Integer.parseInt(sku.substring("SKU-VIEW-".length()));
+                assertEquals(index % 2 == 0 ? 10 + index : 0, row.get("quantity").asInt());
+                matched++;
+            }
+        }
+        assertEquals(PRODUCTS, matched);
+    }
+
+    @Test
+    void testStreamAsJsonArrayMatchesListView() throws Exception {
+        MvcResult pending = mockMvc.perform(get("/api/v1/inventory/view/stream")
+                .header("Authorization", "Bearer " + token)
+                .param("storeId", store.getId().toString())
+                .param("format", "json"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String streamed = mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String listed = mockMvc.perform(get("/api/v1/inventory/view")
+                .header("Authorization", "Bearer " + token)
+                .param("storeId", store.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.sku == 'SKU-VIEW-2')].quantity").value(12))
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readTree(listed), objectMapper.readTree(streamed));
+    }
+
+    @Test
+    void testPageLimitIsValidated() throws Exception {
+        mockMvc.perform(get("/api/v1/inventory/view/page")
+                .header("Authorization", "Bearer " + token)
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,190 @@
+package com.storefront;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.dto.IsbnIngestDTO;
+import com.storefront.model.Role;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.AuthService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_isbn;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class IsbnIngestIntegrationTest {
+
+    private static final Map<String, String> BOOKS = Map.of(
+            "9780000000011", "{\"title\":\"First Book\",\"authors\":[\"Ann One\",\"Bob Two\"],"
+                    + "\"publisher\":\"Stub Press\"},\"saleInfo\":{\"listPrice\":{\"amount\":12.99}",
+            "9780000000028", "{\"title\":\"Second Book\",\"publisher\":\"Stub Press\"},\"saleInfo\":{",
+            "9780000000035", "{\"title\":\"Third Book\",\"authors\":[\"Cy Three\"]},\"saleInfo\":{");
+    private static final Map<String, AtomicInteger> REQUESTS = new ConcurrentHashMap<>();
+    private static final HttpServer BOOKS_API = startBooksApi();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String adminToken;
+    private Store masterStore;
+
+    @DynamicPropertySource
+    static void booksApi(DynamicPropertyRegistry registry) {
+        registry.add("storefront.books.api-url",
+                () -> "http://localhost:" + BOOKS_API.getAddress().getPort() + "/volumes?q=isbn:");
+    }
+
+    @AfterAll
+    static void stopBooksApi() {
+        BOOKS_API.stop(0);
+    }
+
+    @BeforeEach
+    void setup() {
+        masterStore = storeRepository.findFirstByType(Store.StoreType.MASTER)
+                .orElseGet(() -> storeRepository.save(new Store("Master Warehouse", Store.StoreType.MASTER, null)));
+        var admin = authService.login("admin_isbn", "pass")
+                .orElseGet(() -> authService.register("admin_isbn", "pass", Role.SUPER_ADMIN));
+        adminToken = authService.generateToken(admin);
+    }
+
+    @Test
+    void testBatchIngestLooksUpEachIsbnOnceAndWritesStock() throws Exception {
+        List<IsbnIngestDTO> batch = List.of(
+                new IsbnIngestDTO("9780000000011", 3, null),
+                new IsbnIngestDTO("9780000000028", 2, new BigDecimal("9.50")),
+                new IsbnIngestDTO("9780000000011", 1, null),
+                new IsbnIngestDTO("9789999999999", 5, null));
+
+        mockMvc.perform(post("/api/v1/inventory/ingest/isbn/batch")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.products[0].name").value("First Book"))
+                .andExpect(jsonPath("$.products[0].basePrice").value(12.99))
+                .andExpect(jsonPath("$.products[0].attributes.author").value("Ann One, Bob Two"))
+                .andExpect(jsonPath("$.products[1].basePrice").value(9.50))
+                .andExpect(jsonPath("$.notFound[0]").value("9789999999999"));
+
+        assertEquals(1, requests("9780000000011"));
+        assertEquals(1, requests("9780000000028"));
+        assertEquals(4, masterQuantity("9780000000011"));
+        assertEquals(2, masterQuantity("9780000000028"));
+        assertEquals(0, productRepository.findBySkuIn(List.of("9789999999999")).size());
+
+        // Known products only gain stock; no lookup is needed
+        mockMvc.perform(post("/api/v1/inventory/ingest/isbn/batch")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new IsbnIngestDTO("9780000000011", 6, null)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products[0].basePrice").value(12.99));
+
+        assertEquals(1, requests("9780000000011"));
+        assertEquals(10, masterQuantity("9780000000011"));
+    }
+
+    @Test
+    void testSingleIngestUsesPersistentMetadataCache() throws Exception {
+        mockMvc.perform(post("/api/v1/inventory/ingest/isbn")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"9780000000035\",\"quantity\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Third Book"))
+                .andExpect(jsonPath("$.basePrice").value(0));
+        assertEquals(1, requests("9780000000035"));
+
+        // Without the product the ISBN has to be resolved again, now from isbn_metadata
+        Long productId = productRepository.findBySku("9780000000035").orElseThrow().getId();
+        jdbcTemplate.update("DELETE FROM stock_level WHERE product_id = ?", productId);
+        jdbcTemplate.update("DELETE FROM product WHERE id = ?", productId);
+
+        mockMvc.perform(post("/api/v1/inventory/ingest/isbn")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"9780000000035\",\"quantity\":1,\"price\":7.25}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Third Book"))
+                .andExpect(jsonPath("$.attributes.author").value("Cy Three"))
+                .andExpect(jsonPath("$.basePrice").value(7.25));
+        assertEquals(1, requests("9780000000035"));
+        assertEquals(1, masterQuantity("9780000000035"));
+
+        mockMvc.perform(post("/api/v1/inventory/ingest/isbn")
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"9788888888888\",\"quantity\":1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private int masterQuantity(String sku) {
+        return jdbcTemplate.queryForObject("SELECT s.quantity FROM stock_level s JOIN product p ON p.id = s.product_id "
+                + "WHERE s.store_id = ? AND p.sku = ?", Integer.class, masterStore.getId(), sku);
+    }
+
+    private static int requests(String isbn) {
+        return REQUESTS.getOrDefault(isbn, new AtomicInteger()).get();
+    }
+
+    private static HttpServer startBooksApi() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/volumes", exchange -> {
+                String isbn = exchange.getRequestURI().getQuery().replace("q=isbn:", "");
+                REQUESTS.computeIfAbsent(isbn, key -> new AtomicInteger()).incrementAndGet();
+                String book = BOOKS.get(isbn);
+                String body = book == null ? "{\"totalItems\":0}"
+                        : "{\"totalItems\":1,\"items\":[{\"volumeInfo\":" + book + "}}]}";
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
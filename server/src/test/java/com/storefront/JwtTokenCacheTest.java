@@ -0,0 +1,86 @@
+package com.storefront;
+
+import com.storefront.security.JwtTokenProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JwtTokenCacheTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testRepeatedTokenIsVerifiedOnce() {
+        JwtTokenProvider provider = provider(100, 60_000);
+        String token = provider.generateToken("pos_tablet", "EMPLOYEE", 7L);
+
+        Claims first = provider.parseClaims(token).orElseThrow();
+        Claims second = provider.parseClaims(token).orElseThrow();
+
+        assertSame(first, second);
+        assertEquals(7L, second.get("userId", Long.class));
+        assertEquals(1, lookups("miss"));
+        assertEquals(1, lookups("hit"));
+    }
+
+    @Test
+    void testExpiredTokenIsRejectedEvenWhenCached() throws InterruptedException {
+        JwtTokenProvider provider = provider(100, 1_000);
+        String token = provider.generateToken("pos_tablet", "EMPLOYEE", 7L);
+        assertTrue(provider.parseClaims(token).isPresent());
+
+        Thread.sleep(1_100);
+
+        assertTrue(provider.parseClaims(token).isEmpty());
+    }
+
+    @Test
+    void testRevokedTokenIsRejected() {
+        JwtTokenProvider provider = provider(100, 60_000);
+        String revoked = provider.generateToken("pos_tablet", "EMPLOYEE", 7L);
+        String other = provider.generateToken("pos_tablet", "EMPLOYEE", 8L);
+        assertTrue(provider.parseClaims(revoked).isPresent());
+
+        provider.revoke(revoked);
+
+        assertTrue(provider.parseClaims(revoked).isEmpty());
+        assertTrue(provider.parseClaims(other).isPresent());
+    }
+
+    @Test
+    void testCacheIsBounded() {
+        JwtTokenProvider provider = provider(2, 60_000);
+        String oldest = provider.generateToken("a", "EMPLOYEE", 1L);
+        provider.parseClaims(oldest);
+        provider.parseClaims(provider.generateToken("b", "EMPLOYEE", 2L));
+        provider.parseClaims(provider.generateToken("c", "EMPLOYEE", 3L));
+
+        assertEquals(2, meterRegistry.get("storefront.jwt.cache.size").gauge().value());
+        Optional<Claims> reparsed = provider.parseClaims(oldest);
+        assertTrue(reparsed.isPresent());
+        assertEquals(4, lookups("miss"));
+    }
+
+    private JwtTokenProvider provider(int maxEntries, long expirationMs) {
+        JwtTokenProvider provider = new JwtTokenProvider(meterRegistry, maxEntries, expirationMs);
+        provider.init();
+        return provider;
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("storefront.jwt.cache.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,52 @@
+package com.storefront;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.service.OrderIdempotencyStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OrderIdempotencyStoreTest {
+
+    private static final Map<String, Object> BASKET = Map.of("sku", "SKU-1", "quantity", 2);
+
+    @Test
+    void testRunningSubmissionIsNotEvicted() {
+        OrderIdempotencyStore store = store(1, 60_000);
+        OrderIdempotencyStore.Claim running = store.claim(7L, "cart-a", BASKET);
+        OrderIdempotencyStore.Claim other = store.claim(7L, "cart-b", BASKET);
+        store.complete(other, 11L);
+
+        // Still held by the first submission, so a duplicate waits instead of checking out again
+        assertThrows(ResponseStatusException.class, () -> store.claim(7L, "cart-a", BASKET));
+
+        store.complete(running, 10L);
+        assertEquals(10L, store.claim(7L, "cart-a", BASKET).previousOrderId().orElseThrow());
+
+        store.claim(7L, "cart-c", BASKET);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testReleaseLeavesNewerClaimAlone() throws InterruptedException {
+        OrderIdempotencyStore store = store(100, 50);
+        OrderIdempotencyStore.Claim expired = store.claim(7L, "cart-a", BASKET);
+        Thread.sleep(80);
+        OrderIdempotencyStore.Claim current = store.claim(7L, "cart-a", BASKET);
+        assertTrue(current.previousOrderId().isEmpty());
+
+        store.release(expired, new IllegalStateException("checkout failed"));
+
+        assertEquals(1, store.size());
+    }
+
+    private OrderIdempotencyStore store(int maxEntries, long ttlMillis) {
+        return new OrderIdempotencyStore(new ObjectMapper(), new SimpleMeterRegistry(), maxEntries, ttlMillis, 100);
+    }
+}
@@ -5,11 +5,14 @@ import com.storefront.dto.*;
 import com.storefront.model.AppUser;
 import com.storefront.model.Role;
 import com.storefront.model.Store;
+import com.storefront.repository.OrderLineRepository;
 import com.storefront.repository.StockLevelRepository;
 import com.storefront.repository.StoreRepository;
+import com.storefront.security.AuthenticatedUser;
 import com.storefront.service.AuthService;
 import com.storefront.service.InventoryService;
 import com.storefront.service.StoreService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,7 +27,9 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_order;DB_CLOSE_DELAY=-1")
@@ -46,6 +51,10 @@ public class OrderIntegrationTest {
         private InventoryService inventoryService;
         @Autowired
         private StoreService storeService;
+        @Autowired
+        private OrderLineRepository orderLineRepository;
+        @Autowired
+        private EntityManager entityManager;
 
         private String token;
         private AppUser user;
@@ -109,7 +118,7 @@ public class OrderIntegrationTest {
                 item2.setSku("SKU-P1");
                 item2.setQuantity(20);
                 alloc.setItems(List.of(item1, item2));
-                storeService.allocateStock(virtualStore.getId(), alloc, user);
+                storeService.allocateStock(virtualStore.getId(), alloc, AuthenticatedUser.of(user));
         }
 
         @Test
@@ -126,7 +135,8 @@ public class OrderIntegrationTest {
                                 .header("Authorization", "Bearer " + token)
                                 .contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(order1)))
-                                .andExpect(status().isOk());
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.processedBy.username").value("employee"));
 
                 // Verify Stock: Books 20 -> 18
                 var bookId = inventoryService.getAllProducts().stream().filter(p -> p.getSku().equals("SKU-B1"))
@@ -185,6 +195,285 @@ public class OrderIntegrationTest {
                                                 .getQuantity());
         }
 
+        @Test
+        void testEmployeeSeesOrdersOfAssignedStoresOnly() throws Exception {
+                OrderRequestDTO order = new OrderRequestDTO();
+                order.setStoreId(virtualStore.getId());
+                OrderItemRequestDTO item = new OrderItemRequestDTO();
+                item.setSku("SKU-P1");
+                item.setQuantity(1);
+                order.setItems(List.of(item));
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isOk());
+
+                Store otherStore = storeRepository.save(new Store("Other", Store.StoreType.VIRTUAL, null));
+                AppUser clerk = authService.register("clerk_orders", "pass", Role.EMPLOYEE);
+                clerk.addStore(otherStore);
+                String clerkToken = authService.generateToken(clerk);
+
+                mockMvc.perform(get("/api/v1/orders")
+                                .header("Authorization", "Bearer " + clerkToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(0));
+                mockMvc.perform(get("/api/v1/orders").param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + clerkToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(0));
+                mockMvc.perform(get("/api/v1/orders").param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(1));
+        }
+
+        @Test
+        void testReconciliationUsesRunningSalesTotals() throws Exception {
+                placeOrder("SKU-B1", 2);
+                placeOrder("BUN-1", 1);
+
+                mockMvc.perform(get("/api/v1/orders/reconciliation").param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalOrders").value(2))
+                                .andExpect(jsonPath("$.unreconciledOrders").value(2))
+                                .andExpect(jsonPath("$.unreconciledAmount").value(32.0));
+
+                mockMvc.perform(post("/api/v1/stores/" + virtualStore.getId() + "/reconcile")
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalRevenue").value(32.0))
+                                .andExpect(jsonPath("$.totalItemsSold").value(4))
+                                .andExpect(jsonPath("$.soldItems.length()").value(2))
+                                .andExpect(jsonPath("$.soldItems[0].sku").value("SKU-B1"))
+                                .andExpect(jsonPath("$.soldItems[0].quantity").value(3))
+                                .andExpect(jsonPath("$.soldItems[0].total").value(20.0))
+                                .andExpect(jsonPath("$.soldItems[1].sku").value("SKU-P1"))
+                                .andExpect(jsonPath("$.soldItems[1].quantity").value(1));
+
+                mockMvc.perform(get("/api/v1/orders").param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$[0].reconciled").value(true))
+                                .andExpect(jsonPath("$[1].reconciled").value(true));
+
+                // Orders after a reconciliation start the next period
+                placeOrder("SKU-P1", 1);
+                mockMvc.perform(get("/api/v1/orders/reconciliation").param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$.totalOrders").value(3))
+                                .andExpect(jsonPath("$.reconciledOrders").value(2))
+                                .andExpect(jsonPath("$.reconciledAmount").value(32.0))
+                                .andExpect(jsonPath("$.unreconciledAmount").value(5.0));
+                String today = java.time.LocalDate.now().toString();
+                mockMvc.perform(get("/api/v1/orders/reconciliation").param("storeId", virtualStore.getId().toString())
+                                .param("from", today).param("to", today)
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalOrders").value(3))
+                                .andExpect(jsonPath("$.reconciledOrders").value(2))
+                                .andExpect(jsonPath("$.unreconciledAmount").value(5.0));
+                mockMvc.perform(get("/api/v1/orders/reconciliation").param("storeId", virtualStore.getId().toString())
+                                .param("to", java.time.LocalDate.now().minusDays(1).toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$.totalOrders").value(0));
+                mockMvc.perform(post("/api/v1/stores/" + virtualStore.getId() + "/reconcile")
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$.totalRevenue").value(5.0))
+                                .andExpect(jsonPath("$.totalItemsSold").value(1))
+                                .andExpect(jsonPath("$.soldItems.length()").value(1));
+        }
+
+        @Test
+        void testOrderPagesFollowCursorAndLoadLinesOnDemand() throws Exception {
+                String[] customers = { "Alice Brown", "Bob Stone", "alina Grey", "Carl Woods", "Alice Brown" };
+                String[] phones = { "0711000001", "0711000002", "0722000003", "0733000004", "0711000001" };
+                for (int i = 0; i < customers.length; i++) {
+                        OrderRequestDTO order = new OrderRequestDTO();
+                        order.setStoreId(virtualStore.getId());
+                        order.setCustomerName(customers[i]);
+                        order.setCustomerPhone(phones[i]);
+                        OrderItemRequestDTO item = new OrderItemRequestDTO();
+                        item.setSku(i % 2 == 0 ? "SKU-P1" : "BUN-1");
+                        item.setQuantity(1);
+                        order.setItems(List.of(item));
+                        mockMvc.perform(post("/api/v1/orders")
+                                        .header("Authorization", "Bearer " + token)
+                                        .contentType(MediaType.APPLICATION_JSON)
+                                        .content(objectMapper.writeValueAsString(order)))
+                                        .andExpect(status().isOk());
+                }
+                // The page query reads through JDBC; push the last order out of this test's session
+                entityManager.flush();
+
+                java.util.List<Long> seen = new java.util.ArrayList<>();
+                String cursor = null;
+                do {
+                        var request = get("/api/v1/orders/page").param("storeId", virtualStore.getId().toString())
+                                        .param("limit", "2").header("Authorization", "Bearer " + token);
+                        if (cursor != null) {
+                                request.param("cursor", cursor);
+                        }
+                        var page = objectMapper.readTree(mockMvc.perform(request)
+                                        .andExpect(status().isOk())
+                                        .andExpect(jsonPath("$.items[0].orderLines").doesNotExist())
+                                        .andReturn().getResponse().getContentAsString());
+                        page.get("items").forEach(o -> seen.add(o.get("id").asLong()));
+                        cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+                } while (cursor != null);
+                assertEquals(5, seen.size());
+                assertEquals(5, new java.util.HashSet<>(seen).size());
+                java.util.List<Long> newestFirst = new java.util.ArrayList<>(seen);
+                newestFirst.sort(java.util.Comparator.reverseOrder());
+                assertEquals(newestFirst, seen);
+
+                mockMvc.perform(get("/api/v1/orders/page").param("customerName", "ali")
+                                .param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$.items.length()").value(3))
+                                .andExpect(jsonPath("$.items[0].customerName").value("Alice Brown"))
+                                .andExpect(jsonPath("$.items[0].processedBy").value("employee"))
+                                .andExpect(jsonPath("$.nextCursor").isEmpty());
+                mockMvc.perform(get("/api/v1/orders/page").param("customerPhone", "0722")
+                                .param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(jsonPath("$.items.length()").value(1));
+                mockMvc.perform(get("/api/v1/orders/page").param("cursor", "not-a-cursor")
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isBadRequest());
+
+                // The second order holds one bundle: two component lines
+                mockMvc.perform(get("/api/v1/orders/" + seen.get(3) + "/lines")
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.length()").value(2))
+                                .andExpect(jsonPath("$[0].product.sku").value("SKU-B1"));
+
+                AppUser clerk = authService.register("clerk_lines", "pass", Role.EMPLOYEE);
+                clerk.addStore(storeRepository.save(new Store("Elsewhere", Store.StoreType.VIRTUAL, null)));
+                mockMvc.perform(get("/api/v1/orders/" + seen.get(3) + "/lines")
+                                .header("Authorization", "Bearer " + authService.generateToken(clerk)))
+                                .andExpect(status().isForbidden());
+        }
+
+        @Test
+        void testRetriedSubmissionWithIdempotencyKeyChecksOutOnce() throws Exception {
+                OrderRequestDTO order = new OrderRequestDTO();
+                order.setStoreId(virtualStore.getId());
+                OrderItemRequestDTO item = new OrderItemRequestDTO();
+                item.setSku("SKU-B1");
+                item.setQuantity(3);
+                order.setItems(List.of(item));
+                String body = objectMapper.writeValueAsString(order);
+
+                String first = mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .header("Idempotency-Key", "cart-retry-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                long orderId = objectMapper.readTree(first).get("id").asLong();
+
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .header("Idempotency-Key", "cart-retry-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(body))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.id").value(orderId));
+
+                var bookId = inventoryService.getAllProducts().stream().filter(p -> p.getSku().equals("SKU-B1"))
+                                .findFirst().get().getId();
+                assertEquals(17, stockLevelRepository.findByStoreIdAndProductId(virtualStore.getId(), bookId).get()
+                                .getQuantity());
+
+                // Same key with a different basket is refused rather than answered with the old order
+                item.setQuantity(4);
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .header("Idempotency-Key", "cart-retry-1")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isBadRequest());
+
+                // A failed submission releases its key, so the retry checks out for real
+                item.setQuantity(1000);
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .header("Idempotency-Key", "cart-retry-2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isBadRequest());
+                item.setQuantity(1);
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .header("Idempotency-Key", "cart-retry-2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isOk());
+                assertEquals(16, stockLevelRepository.findByStoreIdAndProductId(virtualStore.getId(), bookId).get()
+                                .getQuantity());
+        }
+
+        private void placeOrder(String sku, int quantity) throws Exception {
+                OrderRequestDTO order = new OrderRequestDTO();
+                order.setStoreId(virtualStore.getId());
+                OrderItemRequestDTO item = new OrderItemRequestDTO();
+                item.setSku(sku);
+                item.setQuantity(quantity);
+                order.setItems(List.of(item));
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isOk());
+        }
+
+        @Test
+        void testBundleLinesAreAggregated() throws Exception {
+                OrderRequestDTO order = new OrderRequestDTO();
+                order.setStoreId(virtualStore.getId());
+                OrderItemRequestDTO kits = new OrderItemRequestDTO();
+                kits.setSku("BUN-1");
+                kits.setQuantity(3);
+                OrderItemRequestDTO moreKits = new OrderItemRequestDTO();
+                moreKits.setSku("BUN-1");
+                moreKits.setQuantity(2);
+                order.setItems(List.of(kits, moreKits));
+
+                String body = mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                Long orderId = objectMapper.readTree(body).get("id").asLong();
+
+                // 5 kits of 2 components: 2 stored lines instead of 10
+                var lines = orderLineRepository.findByOrderId(orderId);
+                assertEquals(2, lines.size());
+                lines.forEach(line -> assertEquals(5, line.getBundleUnits()));
+                entityManager.flush();
+                entityManager.clear();
+
+                // Default view expands to one line per bundle unit, as before
+                mockMvc.perform(get("/api/v1/orders")
+                                .param("storeId", virtualStore.getId().toString())
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].orderLines.length()").value(10))
+                                .andExpect(jsonPath("$[0].orderLines[0].quantity").value(1));
+
+                mockMvc.perform(get("/api/v1/orders")
+                                .param("storeId", virtualStore.getId().toString())
+                                .param("lines", "compact")
+                                .header("Authorization", "Bearer " + token))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].orderLines.length()").value(2))
+                                .andExpect(jsonPath("$[0].orderLines[0].bundleUnits").value(5));
+        }
+
         @Test
         void testOrder_InsufficientStock() throws Exception {
                 OrderRequestDTO order = new OrderRequestDTO();
@@ -201,6 +490,20 @@ public class OrderIntegrationTest {
                                 .andExpect(status().isBadRequest());
         }
 
+        @Test
+        void testOrder_EmptyItemsIsRecordedWithZeroTotal() throws Exception {
+                OrderRequestDTO order = new OrderRequestDTO();
+                order.setStoreId(virtualStore.getId());
+                order.setItems(List.of());
+
+                mockMvc.perform(post("/api/v1/orders")
+                                .header("Authorization", "Bearer " + token)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(order)))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.totalAmount").value(0));
+        }
+
         @Test
         void testOrder_InvalidStore() throws Exception {
                 OrderRequestDTO order = new OrderRequestDTO();
@@ -0,0 +1,69 @@
+package com.storefront;
+
+import com.storefront.model.Product;
+import com.storefront.model.attributes.BookAttributes;
+import com.storefront.service.ProductSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Query latency of the product search index over a 500k product catalog.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+public class ProductSearchBenchmarkTest {
+
+    private static final int PRODUCTS = 500_000;
+    private static final int ITERATIONS = 2_000;
+    private static final String[] WORDS = { "river", "garden", "silent", "empire", "winter", "harbor", "crystal",
+            "shadow", "journey", "orchard", "summit", "lantern", "meadow", "falcon", "compass", "voyage" };
+    private static final String[] AUTHORS = { "Austen", "Tolstoy", "Achebe", "Murakami", "Morrison", "Borges",
+            "Lessing", "Naipaul", "Rushdie", "Ishiguro" };
+
+    @Test
+    void measureQueryLatency() {
+        ProductSearchIndex index = new ProductSearchIndex(null, new SimpleMeterRegistry());
+        List<Product> catalog = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            BookAttributes attributes = new BookAttributes();
+            attributes.setAuthor(AUTHORS[i % AUTHORS.length]);
+            attributes.setIsbn("978" + (1_000_000_000L + i));
+            String name = WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i;
+            Product product = new Product("BK-" + i, "BOOK", name, BigDecimal.ONE, attributes);
+            ReflectionTestUtils.setField(product, "id", (long) i + 1);
+            catalog.add(product);
+        }
+        long start = System.nanoTime();
+        index.rebuild(catalog);
+        System.out.printf("Search index build products=%d %.0fms%n", PRODUCTS, (System.nanoTime() - start) / 1e6);
+
+        report(index, "sku", "BK-123456");
+        report(index, "isbn", "9781000250000");
+        report(index, "prefix+author", "lant tolst");
+        report(index, "two words", "winter harbor");
+        report(index, "name prefix", "crys");
+    }
+
+    private void report(ProductSearchIndex index, String label, String query) {
+        for (int i = 0; i < 200; i++) {
+            index.search(query, 50);
+        }
+        long[] samples = new long[ITERATIONS];
+        int hits = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            hits = index.search(query, 50).size();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        System.out.printf("Search %-14s hits=%d p50=%.3fms p99=%.3fms%n", label, hits, samples[ITERATIONS / 2] / 1e6,
+                samples[ITERATIONS * 99 / 100] / 1e6);
+    }
+}
@@ -0,0 +1,97 @@
+package com.storefront;
+
+import com.storefront.model.Product;
+import com.storefront.model.attributes.ApparelAttributes;
+import com.storefront.model.attributes.BookAttributes;
+import com.storefront.repository.ProductRepository;
+import com.storefront.service.InventoryService;
+import com.storefront.service.ProductSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_search;DB_CLOSE_DELAY=-1")
+public class ProductSearchIndexIntegrationTest {
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void testPrefixMatchingRanksNameAboveDescription() {
+        BookAttributes tolkien = new BookAttributes();
+        tolkien.setAuthor("J. R. R. Tolkien");
+        tolkien.setPublisher("Allen & Unwin");
+        inventoryService.createProduct(new Product("SRCH-HOBBIT", "BOOK", "The Hobbit", BigDecimal.TEN, tolkien));
+
+        BookAttributes guide = new BookAttributes();
+        guide.setDescription("A reader's guide to the hobbit and its sources");
+        inventoryService.createProduct(new Product("SRCH-GUIDE", "BOOK", "Companion Guide", BigDecimal.ONE, guide));
+
+        List<ProductSearchIndex.Hit> hits = searchIndex.search("hobb", 10);
+        assertEquals(List.of("SRCH-HOBBIT", "SRCH-GUIDE"), hits.stream().map(ProductSearchIndex.Hit::sku).toList());
+
+        // Every term has to match
+        assertEquals(List.of("SRCH-HOBBIT"), skus(searchIndex.search("tolk hobbit", 10)));
+        assertEquals(List.of("SRCH-HOBBIT"), skus(searchIndex.search("unwin", 10)));
+        assertTrue(searchIndex.search("hobbit zzz", 10).isEmpty());
+    }
+
+    @Test
+    void testLimitAppliesAfterCandidateFilter() {
+        inventoryService.createProduct(new Product("SRCH-LANTERN", "BOOK", "Lantern Tales", BigDecimal.TEN, null));
+        BookAttributes almanac = new BookAttributes();
+        almanac.setDescription("Stories told by lantern light");
+        Product stocked = inventoryService.createProduct(
+                new Product("SRCH-ALMANAC", "BOOK", "Night Almanac", BigDecimal.ONE, almanac));
+
+        assertEquals(List.of("SRCH-LANTERN"), skus(searchIndex.search("lantern", 1)));
+        assertEquals(List.of("SRCH-ALMANAC"),
+                skus(searchIndex.search("lantern", 1, id -> id == stocked.getId())));
+    }
+
+    @Test
+    void testUpdatesAndDeletesAreIndexedIncrementally() {
+        ApparelAttributes shirt = new ApparelAttributes();
+        shirt.setBrand("Acme");
+        shirt.setSize("XL");
+        Product product = inventoryService.createProduct(
+                new Product("SRCH-TEE", "APPAREL", "Crew Tee", BigDecimal.TEN, shirt));
+        assertEquals(List.of("SRCH-TEE"), skus(searchIndex.search("acme xl", 10)));
+
+        Product details = new Product("SRCH-TEE", "APPAREL", "Polo Shirt", BigDecimal.TEN, shirt);
+        inventoryService.updateProduct(product.getId(), details);
+        assertTrue(searchIndex.search("crew", 10).isEmpty());
+        assertEquals(List.of("SRCH-TEE"), skus(searchIndex.search("polo", 10)));
+
+        inventoryService.deleteProduct(product.getId());
+        assertTrue(searchIndex.search("polo", 10).isEmpty());
+    }
+
+    @Test
+    void testRolledBackWritesLeaveIndex() {
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.saveAndFlush(new Product("SRCH-GHOST", "BOOK", "Phantom Atlas", BigDecimal.ONE, null));
+            assertEquals(List.of("SRCH-GHOST"), skus(searchIndex.search("phantom", 10)));
+            status.setRollbackOnly();
+        });
+
+        assertTrue(searchIndex.search("phantom", 10).isEmpty());
+    }
+
+    private static List<String> skus(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::sku).toList();
+    }
+}
@@ -1,8 +1,11 @@
 package com.storefront;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.storefront.model.AppUser;
 import com.storefront.model.Role;
+import com.storefront.repository.AppUserRepository;
 import com.storefront.service.AuthService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -29,6 +33,10 @@ public class SecurityIntegrationTest {
     private ObjectMapper objectMapper;
     @Autowired
     private AuthService authService;
+    @Autowired
+    private AppUserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     private String employeeToken;
     private String adminToken;
@@ -117,9 +125,96 @@ public class SecurityIntegrationTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    void testMetricsAreForAdminsOnly() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics")
+                .header("Authorization", "Bearer " + employeeToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+    }
+
     @Test
     void testMissingAuthHeader() throws Exception {
         mockMvc.perform(get("/api/v1/auth/users"))
                 .andExpect(status().isForbidden());
     }
+
+    @Test
+    void testRepeatedRequestsReuseCachedAuthorities() throws Exception {
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+        double missesBefore = authorityLookups("miss");
+        double hitsBefore = authorityLookups("hit");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/v1/auth/users")
+                    .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(0, authorityLookups("miss") - missesBefore);
+        assertEquals(3, authorityLookups("hit") - hitsBefore);
+    }
+
+    @Test
+    void testRoleChangeAppliesToIssuedTokens() throws Exception {
+        AppUser manager = authService.register("demoted_sec", "pass", Role.ADMIN);
+        String token = authService.generateToken(manager);
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        manager.setRole(Role.EMPLOYEE);
+        userRepository.saveAndFlush(manager);
+
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testDeletedUserTokenIsRejected() throws Exception {
+        AppUser leaver = authService.register("leaver_sec", "pass", Role.ADMIN);
+        String token = authService.generateToken(leaver);
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(org.springframework.test.web.servlet.request.MockMvcRequestBuilders
+                .delete("/api/v1/auth/users/" + leaver.getId())
+                .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void testLogoutRevokesToken() throws Exception {
+        // A user of its own: tokens issued within the same second for the same user are identical
+        String token = authService.generateToken(authService.register("logout_sec", "pass", Role.ADMIN));
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/auth/logout")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/auth/users")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isForbidden());
+    }
+
+    private double authorityLookups(String result) {
+        return meterRegistry.get("storefront.auth.authority.cache.requests").tag("result", result).counter().count();
+    }
 }
@@ -0,0 +1,151 @@
+package com.storefront;
+
+import com.storefront.dto.BundleDTO;
+import com.storefront.dto.BundleViewDTO;
+import com.storefront.model.Bundle;
+import com.storefront.model.BundleItem;
+import com.storefront.model.Product;
+import com.storefront.repository.BundleItemRepository;
+import com.storefront.repository.ProductRepository;
+import com.storefront.service.BundleComposition;
+import com.storefront.service.InventoryService;
+import com.storefront.service.SkuCache;
+import com.storefront.service.SkuDescriptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_skucache;DB_CLOSE_DELAY=-1")
+@Transactional
+public class SkuCacheIntegrationTest {
+
+    @Autowired
+    private SkuCache skuCache;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BundleItemRepository bundleItemRepository;
+
+    @Test
+    void testResolvesProductsAndExplodedBundles() {
+        Product pen = inventoryService.createProduct(new Product("SKU-CACHE-PEN", "STATIONERY", "Pen",
+                new BigDecimal("2.00"), null));
+        BundleDTO.BundleItemDTO item = new BundleDTO.BundleItemDTO();
+        item.setProductSku("SKU-CACHE-PEN");
+        item.setQuantity(3);
+        BundleDTO bundle = new BundleDTO();
+        bundle.setSku("BUN-CACHE-1");
+        bundle.setName("Pen Pack");
+        bundle.setPrice(new BigDecimal("5.00"));
+        bundle.setItems(List.of(item));
+        inventoryService.createBundle(bundle);
+
+        SkuDescriptor product = skuCache.resolve("SKU-CACHE-PEN").orElseThrow();
+        assertFalse(product.isBundle());
+        assertEquals(pen.getId(), product.getId());
+
+        SkuDescriptor kit = skuCache.resolve("BUN-CACHE-1").orElseThrow();
+        assertTrue(kit.isBundle());
+        assertEquals(1, kit.getComposition().size());
+        assertEquals(pen.getId().longValue(), kit.getComposition().productId(0));
+        assertEquals("SKU-CACHE-PEN", kit.getComposition().sku(0));
+        assertEquals(3, kit.getComposition().quantity(0));
+
+        assertTrue(skuCache.resolve("SKU-CACHE-UNKNOWN").isEmpty());
+    }
+
+    @Test
+    void testBundleListingSurvivesBundleSharingAProductSku() {
+        inventoryService.createProduct(new Product("SKU-CACHE-INK", "STATIONERY", "Ink",
+                new BigDecimal("1.00"), null));
+        inventoryService.createProduct(new Product("SKU-CACHE-TWIN", "STATIONERY", "Twin",
+                new BigDecimal("1.00"), null));
+        BundleDTO.BundleItemDTO item = new BundleDTO.BundleItemDTO();
+        item.setProductSku("SKU-CACHE-INK");
+        item.setQuantity(2);
+        BundleDTO bundle = new BundleDTO();
+        bundle.setSku("SKU-CACHE-TWIN");
+        bundle.setName("Ink Twin Pack");
+        bundle.setPrice(new BigDecimal("1.50"));
+        bundle.setItems(List.of(item));
+        Bundle twin = inventoryService.createBundle(bundle);
+
+        BundleViewDTO view = inventoryService.getAllBundles().stream()
+                .filter(listed -> listed.getId().equals(twin.getId()))
+                .findFirst().orElseThrow();
+        assertEquals(1, view.getItems().size());
+        assertEquals("SKU-CACHE-INK", view.getItems().get(0).getProductSku());
+        assertEquals(2, view.getItems().get(0).getQuantity());
+    }
+
+    @Test
+    void testCatalogWritesInvalidateEntries() {
+        Product product = inventoryService.createProduct(new Product("SKU-CACHE-INV", "BOOK", "Atlas",
+                new BigDecimal("10.00"), null));
+        assertEquals(0, new BigDecimal("10.00").compareTo(skuCache.resolve("SKU-CACHE-INV").orElseThrow().getPrice()));
+
+        Product details = new Product("SKU-CACHE-INV", "BOOK", "Atlas", new BigDecimal("12.50"), null);
+        inventoryService.updateProduct(product.getId(), details);
+        productRepository.flush();
+
+        assertEquals(0, new BigDecimal("12.50").compareTo(skuCache.resolve("SKU-CACHE-INV").orElseThrow().getPrice()));
+    }
+
+    @Test
+    void testBundleChangeYieldsNewCompositionVersion() {
+        Product ruler = inventoryService.createProduct(new Product("SKU-CACHE-RUL", "STATIONERY", "Ruler",
+                BigDecimal.ONE, null));
+        Product eraser = inventoryService.createProduct(new Product("SKU-CACHE-ERA", "STATIONERY", "Eraser",
+                BigDecimal.ONE, null));
+        BundleDTO.BundleItemDTO item = new BundleDTO.BundleItemDTO();
+        item.setProductSku("SKU-CACHE-RUL");
+        item.setQuantity(1);
+        BundleDTO dto = new BundleDTO();
+        dto.setSku("BUN-CACHE-2");
+        dto.setName("Geometry Kit");
+        dto.setPrice(BigDecimal.TEN);
+        dto.setItems(List.of(item));
+        Bundle bundle = inventoryService.createBundle(dto);
+        bundleItemRepository.flush();
+
+        BundleComposition before = skuCache.resolve("BUN-CACHE-2").orElseThrow().getComposition();
+        assertSame(before, skuCache.resolve("BUN-CACHE-2").orElseThrow().getComposition());
+
+        bundleItemRepository.saveAndFlush(new BundleItem(bundle, eraser, 2));
+
+        BundleComposition after = skuCache.resolve("BUN-CACHE-2").orElseThrow().getComposition();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(2, after.size());
+        assertEquals(ruler.getId().longValue(), after.productId(0));
+        assertEquals(2, after.quantity(1));
+    }
+
+    @Test
+    void testHitsAndLoadTimeAreReported() {
+        inventoryService.createProduct(new Product("SKU-CACHE-MET", "BOOK", "Metrics", BigDecimal.ONE, null));
+        double hitsBefore = meterRegistry.get("storefront.sku.cache.requests").tag("result", "hit").counter().count();
+
+        skuCache.resolve("SKU-CACHE-MET");
+        skuCache.resolve("SKU-CACHE-MET");
+        skuCache.resolve("SKU-CACHE-MET");
+
+        double hitsAfter = meterRegistry.get("storefront.sku.cache.requests").tag("result", "hit").counter().count();
+        assertEquals(2, hitsAfter - hitsBefore);
+        assertTrue(meterRegistry.get("storefront.sku.cache.load").timer().count() > 0);
+        assertTrue(meterRegistry.get("storefront.sku.cache.hit.ratio").gauge().value() > 0);
+    }
+}
@@ -0,0 +1,135 @@
+package com.storefront;
+
+import com.storefront.model.Product;
+import com.storefront.model.Role;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.AuthService;
+import com.storefront.service.InventoryService;
+import com.storefront.service.StockReceivingService;
+import com.storefront.service.StoreTopology;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+// Not @Transactional: changes are announced when their transaction commits
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb_stockevents;DB_CLOSE_DELAY=-1",
+        "storefront.stock-events.coalesce-ms=50" })
+@AutoConfigureMockMvc
+public class StockEventsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private StockReceivingService stockReceivingService;
+    @Autowired
+    private StoreTopology storeTopology;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String token;
+    private Store store;
+    private Product product;
+
+    @BeforeEach
+    void setup() {
+        token = authService.generateToken(authService.login("events_emp", "pass")
+                .orElseGet(() -> authService.register("events_emp", "pass", Role.EMPLOYEE)));
+        store = storeRepository.save(new Store("Events Store", Store.StoreType.VIRTUAL, null));
+        product = productRepository.save(new Product("SKU-EVENTS-" + store.getId(), "STATIONERY", "Events Pen",
+                BigDecimal.ONE, null));
+    }
+
+    @Test
+    void testCommittedChangesAreStreamedAndCoalescedPerSku() throws Exception {
+        MockHttpServletResponse response = subscribe();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            inventoryService.updateStockCount(product.getSku(), 4, store.getId());
+            inventoryService.updateStockCount(product.getSku(), 7, store.getId());
+        });
+
+        String events = awaitEvent(response, "event:stock");
+        assertTrue(events.contains("\"sku\":\"" + product.getSku() + "\""));
+        assertTrue(events.contains("\"delta\":7"));
+        assertTrue(events.contains("\"quantity\":7"));
+        // Both updates went out as one entry
+        assertEquals(1, events.split("\"sku\"").length - 1);
+    }
+
+    @Test
+    void testRolledBackChangesAreNotStreamed() throws Exception {
+        MockHttpServletResponse response = subscribe();
+
+        assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    inventoryService.updateStockCount(product.getSku(), 9, store.getId());
+                    throw new IllegalStateException("rollback");
+                }));
+        inventoryService.updateStockCount(product.getSku(), 2, store.getId());
+
+        String events = awaitEvent(response, "\"quantity\":2");
+        assertFalse(events.contains("\"quantity\":9"));
+    }
+
+    @Test
+    void testReceivedStockIsStreamedToMasterSubscribers() throws Exception {
+        MockHttpServletResponse response = subscribe(storeTopology.masterStoreId());
+
+        String csv = product.getSku() + ",3\n" + product.getSku() + ",2\n";
+        stockReceivingService.receive(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                StockReceivingService.Format.CSV);
+
+        String events = awaitEvent(response, "\"sku\":\"" + product.getSku() + "\"");
+        assertTrue(events.contains("\"delta\":5"));
+    }
+
+    private MockHttpServletResponse subscribe() throws Exception {
+        return subscribe(store.getId());
+    }
+
+    private MockHttpServletResponse subscribe(Long storeId) throws Exception {
+        return mockMvc.perform(get("/api/v1/stores/" + storeId + "/stock-events")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+    }
+
+    private String awaitEvent(MockHttpServletResponse response, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = response.getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+}
@@ -0,0 +1,101 @@
+package com.storefront;
+
+import com.storefront.dto.StockReceiptDTO;
+import com.storefront.model.Product;
+import com.storefront.model.Store;
+import com.storefront.repository.ProductRepository;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.StockReceivingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Throughput of bulk stock receiving for each accepted body format.
+ * Run with: mvn test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:testdb_bench_receiving;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.jpa.show-sql=false" })
+public class StockReceivingBenchmarkTest {
+
+    private static final int PRODUCTS = 20_000;
+    private static final int ROWS = 200_000;
+    private static final int WARMUP = 2;
+    private static final int ITERATIONS = 5;
+
+    @Autowired
+    private StockReceivingService stockReceivingService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setup() {
+        if (storeRepository.findFirstByType(Store.StoreType.MASTER).isEmpty()) {
+            storeRepository.save(new Store("Master", Store.StoreType.MASTER, null));
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product("RCV-" + i, "STATIONERY", "Receive " + i, BigDecimal.ONE, null));
+        }
+        productRepository.saveAll(products);
+    }
+
+    @Test
+    void measureReceivingThroughput() {
+        StringBuilder csv = new StringBuilder("sku,quantity\n");
+        StringBuilder ndjson = new StringBuilder();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ROWS; i++) {
+            String sku = "RCV-" + (i % PRODUCTS);
+            csv.append(sku).append(",3\n");
+            ndjson.append("{\"sku\":\"").append(sku).append("\",\"quantity\":3}\n");
+            json.append(i == 0 ? "" : ",").append("{\"sku\":\"").append(sku).append("\",\"quantity\":3}");
+        }
+        json.append(']');
+
+        report("json", measure(json.toString(), StockReceivingService.Format.JSON));
+        report("ndjson", measure(ndjson.toString(), StockReceivingService.Format.NDJSON));
+        report("csv", measure(csv.toString(), StockReceivingService.Format.CSV));
+    }
+
+    private long[] measure(String body, StockReceivingService.Format format) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < WARMUP; i++) {
+            receive(bytes, format);
+        }
+        long[] samples = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            receive(bytes, format);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private void receive(byte[] bytes, StockReceivingService.Format format) {
+        StockReceiptDTO receipt = stockReceivingService.receive(new ByteArrayInputStream(bytes), format);
+        if (receipt.getAccepted() != ROWS) {
+            throw new IllegalStateException("accepted " + receipt.getAccepted() + " of " + ROWS + " rows");
+        }
+    }
+
+    private void report(String label, long[] sorted) {
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        System.out.printf("Receiving %-7s rows=%d p50=%.1fms max=%.1fms throughput=%.0f rows/s%n", label, ROWS,
+                p50, sorted[sorted.length - 1] / 1e6, ROWS / (p50 / 1000));
+    }
+}
@@ -2,11 +2,16 @@ package com.storefront;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.storefront.dto.AllocationRequestDTO;
+import com.storefront.dto.BatchAllocationRequestDTO;
 import com.storefront.dto.BundleDTO;
 import com.storefront.dto.StockAllocationDTO;
 import com.storefront.dto.StockIngestDTO;
+import com.storefront.dto.StoreAllocationDTO;
+import com.storefront.model.InventoryTransfer;
 import com.storefront.model.Role;
+import com.storefront.model.StockDelta;
 import com.storefront.model.Store;
+import com.storefront.repository.InventoryTransferRepository;
 import com.storefront.repository.StockLevelRepository;
 import com.storefront.repository.StoreRepository;
 import com.storefront.service.AuthService;
@@ -23,12 +28,15 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import com.storefront.model.AppUser;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_store;DB_CLOSE_DELAY=-1")
@@ -52,6 +60,8 @@ public class StoreIntegrationTest {
         private StoreService storeService;
         @Autowired
         private com.storefront.repository.AppUserRepository appUserRepository;
+        @Autowired
+        private InventoryTransferRepository transferRepository;
 
         private String adminToken;
         private Store virtualStore;
@@ -236,4 +246,107 @@ public class StoreIntegrationTest {
                                 .content(objectMapper.writeValueAsString(request)))
                                 .andExpect(status().isForbidden());
         }
+
+        @Test
+        void testStoreListingAnswersConditionalGetsUntilAStoreIsCreated() throws Exception {
+                String etag = mockMvc.perform(get("/api/v1/stores")
+                                .header("Authorization", "Bearer " + adminToken))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getHeader("ETag");
+
+                mockMvc.perform(get("/api/v1/stores")
+                                .header("Authorization", "Bearer " + adminToken)
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isNotModified());
+
+                storeService.createStore("Etag Kiosk", Store.StoreType.VIRTUAL, null);
+
+                mockMvc.perform(get("/api/v1/stores")
+                                .header("Authorization", "Bearer " + adminToken)
+                                .header("If-None-Match", etag))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[?(@.name == 'Etag Kiosk')]").exists());
+        }
+
+        @Test
+        void testMultiStoreAllocationMovesEverythingOrNothing() throws Exception {
+                var bookId = inventoryService.getAllProducts().stream().filter(p -> p.getSku().equals("SKU-BOOK-1"))
+                                .findFirst().get().getId();
+                // Enough kiosks for the transfer ids to span more than one sequence block
+                List<StoreAllocationDTO> items = new ArrayList<>();
+                List<Long> kioskIds = new ArrayList<>();
+                for (int i = 0; i < 60; i++) {
+                        Long kioskId = storeRepository.save(new Store("Kiosk " + i, Store.StoreType.VIRTUAL, null))
+                                        .getId();
+                        kioskIds.add(kioskId);
+                        items.add(storeItem(kioskId, "SKU-BOOK-1", 1));
+                }
+                items.add(storeItem(kioskIds.get(0), "SKU-BOOK-1", 2));
+                BatchAllocationRequestDTO request = new BatchAllocationRequestDTO();
+                request.setItems(items);
+
+                mockMvc.perform(post("/api/v1/stores/allocations")
+                                .header("Authorization", "Bearer " + adminToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isOk());
+
+                assertEquals(38, stockLevelRepository.findQuantity(masterStore.getId(), bookId).get());
+                assertEquals(3, stockLevelRepository.findQuantity(kioskIds.get(0), bookId).get());
+                assertEquals(1, stockLevelRepository.findQuantity(kioskIds.get(59), bookId).get());
+                var transfers = transferRepository.findAll().stream()
+                                .filter(t -> kioskIds.contains(t.getToStore().getId())).toList();
+                assertEquals(61, transfers.size());
+                assertEquals(61, transfers.stream().map(InventoryTransfer::getId).distinct().count());
+
+                // One line short of stock fails the whole request
+                request.setItems(List.of(storeItem(kioskIds.get(1), "SKU-PEN-1", 5),
+                                storeItem(kioskIds.get(2), "SKU-BOOK-1", 39)));
+                mockMvc.perform(post("/api/v1/stores/allocations")
+                                .header("Authorization", "Bearer " + adminToken)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isBadRequest());
+                var penId = inventoryService.getAllProducts().stream().filter(p -> p.getSku().equals("SKU-PEN-1"))
+                                .findFirst().get().getId();
+                assertEquals(100, stockLevelRepository.findQuantity(masterStore.getId(), penId).get());
+                assertEquals(38, stockLevelRepository.findQuantity(masterStore.getId(), bookId).get());
+        }
+
+        @Test
+        void testEndOfDayReturnMovesAllStockBackToMaster() throws Exception {
+                Store kiosk = storeRepository.save(new Store("Closing Kiosk", Store.StoreType.VIRTUAL, null));
+                var book = inventoryService.getAllProducts().stream().filter(p -> p.getSku().equals("SKU-BOOK-1"))
+                                .findFirst().get();
+                // Stocked at the kiosk only, so Master gets a new row
+                var mug = inventoryService.createProduct(new com.storefront.model.Product("SKU-MUG-1", "STATIONERY",
+                                "Mug 1", new BigDecimal("4"), null));
+                stockLevelRepository.flush();
+                stockLevelRepository.addQuantities(List.of(
+                                new StockDelta(masterStore.getId(), book.getId(), -30),
+                                new StockDelta(kiosk.getId(), book.getId(), 30),
+                                new StockDelta(kiosk.getId(), mug.getId(), 6)));
+
+                mockMvc.perform(post("/api/v1/stores/" + kiosk.getId() + "/reconcile?returnStock=true")
+                                .header("Authorization", "Bearer " + adminToken))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.returnedItems.length()").value(2))
+                                .andExpect(jsonPath("$.returnedItems[?(@.sku == 'SKU-BOOK-1')].quantity").value(30))
+                                .andExpect(jsonPath("$.returnedItems[?(@.sku == 'SKU-MUG-1')].name").value("Mug 1"));
+
+                assertEquals(100, stockLevelRepository.findQuantity(masterStore.getId(), book.getId()).get());
+                assertEquals(6, stockLevelRepository.findQuantity(masterStore.getId(), mug.getId()).get());
+                assertEquals(0, stockLevelRepository.findQuantity(kiosk.getId(), book.getId()).get());
+                assertEquals(0, stockLevelRepository.findQuantity(kiosk.getId(), mug.getId()).get());
+                assertEquals(2, transferRepository.findAll().stream()
+                                .filter(t -> t.getFromStore().getId().equals(kiosk.getId())).count());
+        }
+
+        private static StoreAllocationDTO storeItem(Long storeId, String sku, int quantity) {
+                StoreAllocationDTO item = new StoreAllocationDTO();
+                item.setStoreId(storeId);
+                item.setSku(sku);
+                item.setQuantity(quantity);
+                return item;
+        }
 }
@@ -0,0 +1,55 @@
+package com.storefront;
+
+import com.storefront.model.Store;
+import com.storefront.repository.StoreRepository;
+import com.storefront.service.StoreService;
+import com.storefront.service.StoreTopology;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Not @Transactional: stores are registered when their transaction commits
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:testdb_topology;DB_CLOSE_DELAY=-1")
+public class StoreTopologyIntegrationTest {
+
+    @Autowired
+    private StoreTopology storeTopology;
+    @Autowired
+    private StoreService storeService;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testResolvesMasterAndRegistersCreatedStores() {
+        Long masterId = storeRepository.findFirstByType(Store.StoreType.MASTER).orElseThrow().getId();
+        assertEquals(masterId, storeTopology.masterStoreId());
+        assertEquals(Store.StoreType.MASTER, storeTopology.find(masterId).orElseThrow().type());
+
+        Store kiosk = storeService.createStore("Topology Kiosk", Store.StoreType.VIRTUAL, null);
+        StoreTopology.StoreInfo info = storeTopology.find(kiosk.getId()).orElseThrow();
+        assertEquals("Topology Kiosk", info.name());
+        assertEquals(Store.StoreType.VIRTUAL, info.type());
+        assertEquals(masterId, storeTopology.masterStoreId());
+
+        assertTrue(storeTopology.find(-1L).isEmpty());
+    }
+
+    @Test
+    void testRolledBackStoreIsNotRegistered() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long[] id = new Long[1];
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            id[0] = storeService.createStore("Rolled Back Kiosk", Store.StoreType.VIRTUAL, null).getId();
+            throw new IllegalStateException("rollback");
+        }));
+        assertTrue(storeTopology.find(id[0]).isEmpty());
+    }
+}